@@ -0,0 +1,60 @@
+package demo.completable_future.common;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+public class PipelineState {
+
+    public enum ExecutorType {
+        COMMON_POOL, FIXED_POOL, DIRECT
+    }
+
+    @Param({"COMMON_POOL", "FIXED_POOL", "DIRECT"})
+    public ExecutorType executorType;
+
+    @Param({"1", "10", "100", "1000"})
+    public int depth;
+
+    public Executor executor;
+
+    private ExecutorService fixedPool;
+
+    @Setup
+    public void setUp() {
+        switch (executorType) {
+            case COMMON_POOL:
+                executor = ForkJoinPool.commonPool();
+                break;
+            case FIXED_POOL:
+                fixedPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+                executor = fixedPool;
+                break;
+            case DIRECT:
+                executor = Runnable::run;
+                break;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        if (fixedPool != null) {
+            fixedPool.shutdown();
+            fixedPool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    public CompletableFuture<Integer> source() {
+        return CompletableFuture.supplyAsync(() -> 0, executor);
+    }
+}
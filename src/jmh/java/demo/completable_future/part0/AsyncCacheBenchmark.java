@@ -0,0 +1,50 @@
+package demo.completable_future.part0;
+
+import demo.completable_future.common.AsyncCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// cache reads from 8 threads: all on one hot key, or on random keys over a key space 2x the cache size (about half miss)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class AsyncCacheBenchmark {
+
+    @Param({"1000", "100000"})
+    public int maximumSize;
+
+    private AsyncCache<Integer, Integer> cache;
+
+    @Setup
+    public void setup() {
+        cache = new AsyncCache<>(CompletableFuture::completedFuture, maximumSize);
+    }
+
+    @Benchmark
+    public Integer sameKey() {
+        return cache.get(0).join();
+    }
+
+    @Benchmark
+    public Integer randomKey() {
+        return cache.get(ThreadLocalRandom.current().nextInt(2 * maximumSize)).join();
+    }
+}
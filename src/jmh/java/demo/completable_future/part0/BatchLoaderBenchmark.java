@@ -0,0 +1,88 @@
+package demo.completable_future.part0;
+
+import demo.completable_future.common.BatchLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// 512 tax lookups against a service whose round trip costs much more than each item in it:
+// one call per item, or calls batched by the loader
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchLoaderBenchmark {
+
+    private static final int ITEMS = 512;
+    private static final long ROUND_TRIP_TOKENS = 2000;
+    private static final long ITEM_TOKENS = 20;
+
+    @State(Scope.Benchmark)
+    public static class Batching {
+
+        @Param({"8", "32", "128", "512"})
+        public int batchSize;
+
+        private BatchLoader<Integer, Float> batchLoader;
+
+        @Setup
+        public void setup() {
+            batchLoader = new BatchLoader<>(BatchLoaderBenchmark::getTaxes, batchSize, Duration.ofMillis(10));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void perItem(Blackhole blackhole) {
+        List<CompletableFuture<Float>> taxes = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            taxes.add(getTax(i));
+        }
+        for (CompletableFuture<Float> tax : taxes) {
+            blackhole.consume(tax.join());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void batched(Batching batching, Blackhole blackhole) {
+        List<CompletableFuture<Float>> taxes = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            taxes.add(batching.batchLoader.load(i));
+        }
+        for (CompletableFuture<Float> tax : taxes) {
+            blackhole.consume(tax.join());
+        }
+    }
+
+    private static CompletableFuture<Float> getTax(int amount) {
+        Blackhole.consumeCPU(ROUND_TRIP_TOKENS + ITEM_TOKENS);
+        return CompletableFuture.completedFuture(50 / 100f);
+    }
+
+    private static CompletableFuture<List<Float>> getTaxes(List<Integer> amounts) {
+        Blackhole.consumeCPU(ROUND_TRIP_TOKENS + ITEM_TOKENS * amounts.size());
+        List<Float> taxes = new ArrayList<>(amounts.size());
+        for (int i = 0; i < amounts.size(); i++) {
+            taxes.add(50 / 100f);
+        }
+        return CompletableFuture.completedFuture(taxes);
+    }
+}
@@ -0,0 +1,59 @@
+package demo.completable_future.part0;
+
+import demo.completable_future.common.RateLimiter;
+import demo.completable_future.common.VirtualClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// a permit while tokens are left, and 1000 permits that wait in the queue until virtual-time refills release them
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private static final int WAITERS = 1000;
+
+    private RateLimiter unlimited;
+    private VirtualClock clock;
+    private RateLimiter limited;
+
+    @Setup
+    public void setup() {
+        unlimited = new RateLimiter(Integer.MAX_VALUE, Duration.ofSeconds(1));
+        clock = new VirtualClock();
+        limited = new RateLimiter(1, Duration.ofMillis(1), clock);
+    }
+
+    @Benchmark
+    public Object tokenLeft() {
+        return unlimited.acquire().join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WAITERS)
+    public void queued(Blackhole blackhole) {
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < WAITERS; i++) {
+            last = limited.acquire();
+        }
+        clock.advance(Duration.ofSeconds(1)); // one refill timer per waiter
+        blackhole.consume(last.join());
+    }
+}
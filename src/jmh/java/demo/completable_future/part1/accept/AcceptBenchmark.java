@@ -0,0 +1,82 @@
+package demo.completable_future.part1.accept;
+
+import demo.completable_future.common.PipelineState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AcceptBenchmark {
+
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    @Benchmark
+    public void thenAccept(PipelineState state, Blackhole blackhole) {
+        CompletableFuture<Void> future = state.source().thenAccept(blackhole::consume);
+        for (int i = 1; i < state.depth; i++) {
+            future = future.thenAccept(blackhole::consume);
+        }
+        future.join();
+    }
+
+    @Benchmark
+    public void thenAcceptAsync(PipelineState state, Blackhole blackhole) {
+        CompletableFuture<Void> future = state.source().thenAcceptAsync(blackhole::consume, state.executor);
+        for (int i = 1; i < state.depth; i++) {
+            future = future.thenAcceptAsync(blackhole::consume, state.executor);
+        }
+        future.join();
+    }
+
+    @Benchmark
+    public void thenAcceptBoth(PipelineState state, Blackhole blackhole) {
+        CompletableFuture<Void> future = state.source().thenAcceptBoth(DONE, (v1, v2) -> blackhole.consume(v1));
+        for (int i = 1; i < state.depth; i++) {
+            future = future.thenAcceptBoth(DONE, (v1, v2) -> blackhole.consume(v1));
+        }
+        future.join();
+    }
+
+    @Benchmark
+    public void thenAcceptBothAsync(PipelineState state, Blackhole blackhole) {
+        CompletableFuture<Void> future = state.source().thenAcceptBothAsync(DONE, (v1, v2) -> blackhole.consume(v1), state.executor);
+        for (int i = 1; i < state.depth; i++) {
+            future = future.thenAcceptBothAsync(DONE, (v1, v2) -> blackhole.consume(v1), state.executor);
+        }
+        future.join();
+    }
+
+    @Benchmark
+    public void acceptEither(PipelineState state, Blackhole blackhole) {
+        CompletableFuture<Void> slower = new CompletableFuture<>();
+        CompletableFuture<Void> future = state.source().thenAccept(blackhole::consume);
+        for (int i = 1; i < state.depth; i++) {
+            future = future.acceptEither(slower, blackhole::consume);
+        }
+        future.join();
+        slower.complete(null);
+    }
+
+    @Benchmark
+    public void acceptEitherAsync(PipelineState state, Blackhole blackhole) {
+        CompletableFuture<Void> slower = new CompletableFuture<>();
+        CompletableFuture<Void> future = state.source().thenAccept(blackhole::consume);
+        for (int i = 1; i < state.depth; i++) {
+            future = future.acceptEitherAsync(slower, blackhole::consume, state.executor);
+        }
+        future.join();
+        slower.complete(null);
+    }
+}
@@ -0,0 +1,101 @@
+package demo.completable_future.part1.apply;
+
+import demo.completable_future.common.PipelineState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApplyBenchmark {
+
+    private static final CompletableFuture<Integer> ONE = CompletableFuture.completedFuture(1);
+
+    @Benchmark
+    public Integer thenApply(PipelineState state) {
+        CompletableFuture<Integer> future = state.source();
+        for (int i = 0; i < state.depth; i++) {
+            future = future.thenApply(value -> value + 1);
+        }
+        return future.join();
+    }
+
+    @Benchmark
+    public Integer thenApplyAsync(PipelineState state) {
+        CompletableFuture<Integer> future = state.source();
+        for (int i = 0; i < state.depth; i++) {
+            future = future.thenApplyAsync(value -> value + 1, state.executor);
+        }
+        return future.join();
+    }
+
+    @Benchmark
+    public Integer thenCompose(PipelineState state) {
+        CompletableFuture<Integer> future = state.source();
+        for (int i = 0; i < state.depth; i++) {
+            future = future.thenCompose(value -> CompletableFuture.completedFuture(value + 1));
+        }
+        return future.join();
+    }
+
+    @Benchmark
+    public Integer thenComposeAsync(PipelineState state) {
+        CompletableFuture<Integer> future = state.source();
+        for (int i = 0; i < state.depth; i++) {
+            future = future.thenComposeAsync(value -> CompletableFuture.completedFuture(value + 1), state.executor);
+        }
+        return future.join();
+    }
+
+    @Benchmark
+    public Integer thenCombine(PipelineState state) {
+        CompletableFuture<Integer> future = state.source();
+        for (int i = 0; i < state.depth; i++) {
+            future = future.thenCombine(ONE, Integer::sum);
+        }
+        return future.join();
+    }
+
+    @Benchmark
+    public Integer thenCombineAsync(PipelineState state) {
+        CompletableFuture<Integer> future = state.source();
+        for (int i = 0; i < state.depth; i++) {
+            future = future.thenCombineAsync(ONE, Integer::sum, state.executor);
+        }
+        return future.join();
+    }
+
+    @Benchmark
+    public Integer applyToEither(PipelineState state) {
+        CompletableFuture<Integer> slower = new CompletableFuture<>();
+        CompletableFuture<Integer> future = state.source();
+        for (int i = 0; i < state.depth; i++) {
+            future = future.applyToEither(slower, value -> value + 1);
+        }
+        Integer result = future.join();
+        slower.complete(0);
+        return result;
+    }
+
+    @Benchmark
+    public Integer applyToEitherAsync(PipelineState state) {
+        CompletableFuture<Integer> slower = new CompletableFuture<>();
+        CompletableFuture<Integer> future = state.source();
+        for (int i = 0; i < state.depth; i++) {
+            future = future.applyToEitherAsync(slower, value -> value + 1, state.executor);
+        }
+        Integer result = future.join();
+        slower.complete(0);
+        return result;
+    }
+}
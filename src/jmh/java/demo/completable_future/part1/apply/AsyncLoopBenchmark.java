@@ -0,0 +1,58 @@
+package demo.completable_future.part1.apply;
+
+import demo.completable_future.common.AsyncLoops;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// one loop of N iterations whose step returns an already completed future; the recursive thenCompose is kept shallow so it does not overflow the stack
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AsyncLoopBenchmark {
+
+    @Param({"1000"})
+    private int iterations;
+
+    @Benchmark
+    public int iterateAsync() {
+        return AsyncLoops.iterateAsync(0, i -> i < iterations, i -> CompletableFuture.completedFuture(i + 1)).join();
+    }
+
+    @Benchmark
+    public int recursiveThenCompose() {
+        return thenCompose(0).join();
+    }
+
+    @Benchmark
+    public int recursiveThenComposeAsync() {
+        return thenComposeAsync(0).join();
+    }
+
+    private CompletableFuture<Integer> thenCompose(int value) {
+        if (value == iterations) {
+            return CompletableFuture.completedFuture(value);
+        }
+        return CompletableFuture.completedFuture(value + 1).thenCompose(this::thenCompose);
+    }
+
+    private CompletableFuture<Integer> thenComposeAsync(int value) {
+        if (value == iterations) {
+            return CompletableFuture.completedFuture(value);
+        }
+        return CompletableFuture.completedFuture(value + 1).thenComposeAsync(this::thenComposeAsync); // one executor hop per iteration
+    }
+}
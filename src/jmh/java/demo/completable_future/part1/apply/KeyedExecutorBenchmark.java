@@ -0,0 +1,106 @@
+package demo.completable_future.part1.apply;
+
+import demo.completable_future.common.KeyedExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// a batch of account updates on random accounts, each update ordered per account; the pool size stands for the core count
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyedExecutorBenchmark {
+
+    private static final int UPDATES = 1000;
+    private static final int ACCOUNTS = 1024;
+
+    @Param({"1", "8", "64"})
+    public int poolSize;
+
+    private final long[] balances = new long[ACCOUNTS];
+    private final Object[] locks = new Object[ACCOUNTS];
+
+    private ForkJoinPool pool;
+    private ExecutorService singleThread;
+    private KeyedExecutor<Integer> keyedExecutor;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            locks[i] = new Object();
+        }
+        pool = new ForkJoinPool(poolSize);
+        singleThread = Executors.newSingleThreadExecutor();
+        keyedExecutor = new KeyedExecutor<>(pool, 256);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+        singleThread.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void keyedExecutor() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(UPDATES);
+        for (int i = 0; i < UPDATES; i++) {
+            int account = ThreadLocalRandom.current().nextInt(ACCOUNTS);
+            keyedExecutor.execute(account, () -> update(account, done));
+        }
+        done.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void synchronizedPerKey() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(UPDATES);
+        for (int i = 0; i < UPDATES; i++) {
+            int account = ThreadLocalRandom.current().nextInt(ACCOUNTS);
+            pool.execute(() -> {
+                synchronized (locks[account]) {
+                    update(account, done);
+                }
+            });
+        }
+        done.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void singleThreadExecutor() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(UPDATES);
+        for (int i = 0; i < UPDATES; i++) {
+            int account = ThreadLocalRandom.current().nextInt(ACCOUNTS);
+            singleThread.execute(() -> update(account, done));
+        }
+        done.await();
+    }
+
+    private void update(int account, CountDownLatch done) {
+        Blackhole.consumeCPU(100);
+        balances[account]++;
+        done.countDown();
+    }
+}
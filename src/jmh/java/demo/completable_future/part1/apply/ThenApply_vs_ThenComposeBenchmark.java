@@ -0,0 +1,50 @@
+package demo.completable_future.part1.apply;
+
+import demo.completable_future.common.PipelineState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThenApply_vs_ThenComposeBenchmark {
+
+    @Benchmark
+    public Integer thenApplyFast(PipelineState state) {
+        CompletableFuture<Integer> future = state.source();
+        for (int i = 0; i < state.depth; i++) {
+            future = future.thenApply(value -> value + 3); // Function<Integer, Integer>
+        }
+        return future.join();
+    }
+
+    @Benchmark
+    public Integer thenApplySlow(PipelineState state) {
+        CompletableFuture<Integer> future = state.source();
+        for (int i = 0; i < state.depth; i++) {
+            future = future
+                    .thenApply(value -> CompletableFuture.supplyAsync(() -> value + 3, state.executor)) // Function<Integer, CompletableFuture<Integer>>
+                    .join(); // blocking
+        }
+        return future.join();
+    }
+
+    @Benchmark
+    public Integer thenCompose(PipelineState state) {
+        CompletableFuture<Integer> future = state.source();
+        for (int i = 0; i < state.depth; i++) {
+            future = future.thenCompose(value -> CompletableFuture.supplyAsync(() -> value + 3, state.executor)); // Function<Integer, CompletionStage<Integer>>
+        }
+        return future.join();
+    }
+}
@@ -0,0 +1,83 @@
+package demo.completable_future.part1.run;
+
+import demo.completable_future.common.PipelineState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RunBenchmark {
+
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private static final Runnable NOOP = () -> {};
+
+    @Benchmark
+    public void thenRun(PipelineState state) {
+        CompletableFuture<Void> future = state.source().thenRun(NOOP);
+        for (int i = 1; i < state.depth; i++) {
+            future = future.thenRun(NOOP);
+        }
+        future.join();
+    }
+
+    @Benchmark
+    public void thenRunAsync(PipelineState state) {
+        CompletableFuture<Void> future = state.source().thenRunAsync(NOOP, state.executor);
+        for (int i = 1; i < state.depth; i++) {
+            future = future.thenRunAsync(NOOP, state.executor);
+        }
+        future.join();
+    }
+
+    @Benchmark
+    public void runAfterBoth(PipelineState state) {
+        CompletableFuture<Void> future = state.source().runAfterBoth(DONE, NOOP);
+        for (int i = 1; i < state.depth; i++) {
+            future = future.runAfterBoth(DONE, NOOP);
+        }
+        future.join();
+    }
+
+    @Benchmark
+    public void runAfterBothAsync(PipelineState state) {
+        CompletableFuture<Void> future = state.source().runAfterBothAsync(DONE, NOOP, state.executor);
+        for (int i = 1; i < state.depth; i++) {
+            future = future.runAfterBothAsync(DONE, NOOP, state.executor);
+        }
+        future.join();
+    }
+
+    @Benchmark
+    public void runAfterEither(PipelineState state) {
+        CompletableFuture<Void> slower = new CompletableFuture<>();
+        CompletableFuture<Void> future = state.source().thenRun(NOOP);
+        for (int i = 1; i < state.depth; i++) {
+            future = future.runAfterEither(slower, NOOP);
+        }
+        future.join();
+        slower.complete(null);
+    }
+
+    @Benchmark
+    public void runAfterEitherAsync(PipelineState state) {
+        CompletableFuture<Void> slower = new CompletableFuture<>();
+        CompletableFuture<Void> future = state.source().thenRun(NOOP);
+        for (int i = 1; i < state.depth; i++) {
+            future = future.runAfterEitherAsync(slower, NOOP, state.executor);
+        }
+        future.join();
+        slower.complete(null);
+    }
+}
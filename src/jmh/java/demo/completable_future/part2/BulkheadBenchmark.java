@@ -0,0 +1,67 @@
+package demo.completable_future.part2;
+
+import demo.completable_future.common.Bulkhead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// 64 threads calling through a bulkhead shared by all of them, against a blocking semaphore with as many permits
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class BulkheadBenchmark {
+
+    @Param({"8", "64"})
+    public int maxConcurrent;
+
+    private Bulkhead bulkhead;
+    private Semaphore semaphore;
+
+    @Setup
+    public void setup() {
+        bulkhead = new Bulkhead(maxConcurrent, 1024, Duration.ofSeconds(10));
+        semaphore = new Semaphore(maxConcurrent, true);
+    }
+
+    @Benchmark
+    public String direct() {
+        return call().join();
+    }
+
+    @Benchmark
+    public String bulkhead() {
+        return bulkhead.call(BulkheadBenchmark::call).join();
+    }
+
+    @Benchmark
+    public String semaphore() throws InterruptedException {
+        semaphore.acquire();
+        try {
+            return call().join();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    private static CompletableFuture<String> call() {
+        return CompletableFuture.completedFuture("value");
+    }
+}
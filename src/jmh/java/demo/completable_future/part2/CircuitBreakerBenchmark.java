@@ -0,0 +1,44 @@
+package demo.completable_future.part2;
+
+import demo.completable_future.common.CircuitBreaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// overhead of a closed circuit breaker shared by all benchmark threads
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class CircuitBreakerBenchmark {
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(0.5, 100, Duration.ofSeconds(10), Duration.ofSeconds(10));
+
+    @Benchmark
+    public String direct() {
+        return call().join();
+    }
+
+    @Benchmark
+    public String closedCircuitBreaker() {
+        return circuitBreaker.call(CircuitBreakerBenchmark::call).join();
+    }
+
+    private static CompletableFuture<String> call() {
+        return CompletableFuture.completedFuture("value");
+    }
+}
@@ -0,0 +1,99 @@
+package demo.completable_future.part3;
+
+import demo.completable_future.common.ExecutionMode;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// gradle jmh -Pjmh.include=BlockingStagesBenchmark
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xss256k"})
+public class BlockingStagesBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Stages {
+
+        @Param({"COMMON_POOL", "CACHED_THREAD_POOL", "VIRTUAL_THREADS"})
+        public ExecutionMode mode;
+
+        @Param({"10000", "100000"})
+        public int stages;
+
+        @Param({"10"})
+        public int blockingMillis;
+
+        ExecutorService executor;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            executor = mode.newExecutor();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            executor.close();
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Memory {
+
+        private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private static final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        public long peakPlatformThreads;
+        public long committedHeapMb;
+        public long committedNonHeapMb;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            threads.resetPeakThreadCount();
+        }
+
+        void sample() {
+            peakPlatformThreads = threads.getPeakThreadCount();
+            committedHeapMb = memory.getHeapMemoryUsage().getCommitted() >> 20;
+            committedNonHeapMb = memory.getNonHeapMemoryUsage().getCommitted() >> 20;
+        }
+    }
+
+    @Benchmark
+    public void blockingStages(Stages state, Memory memory) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[state.stages];
+        for (int i = 0; i < state.stages; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> sleep(state.blockingMillis), state.executor);
+        }
+        CompletableFuture.allOf(futures).join();
+        memory.sample();
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package demo.completable_future.part3;
+
+import demo.completable_future.common.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// one handoff = create, register a callback, complete (or the reverse order); run with -prof gc for bytes per handoff
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PromiseBenchmark {
+
+    private final RuntimeException exception = new RuntimeException("exception");
+
+    @Benchmark
+    public void completableFutureCallbackFirst(Blackhole blackhole) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.whenComplete((value, throwable) -> blackhole.consume(value));
+        future.complete("value");
+    }
+
+    @Benchmark
+    public void promiseCallbackFirst(Blackhole blackhole) {
+        Promise<String> promise = new Promise<>();
+        promise.onComplete((value, throwable) -> blackhole.consume(value));
+        promise.complete("value");
+    }
+
+    @Benchmark
+    public void completableFutureCompleteFirst(Blackhole blackhole) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.complete("value");
+        future.whenComplete((value, throwable) -> blackhole.consume(value));
+    }
+
+    @Benchmark
+    public void promiseCompleteFirst(Blackhole blackhole) {
+        Promise<String> promise = new Promise<>();
+        promise.complete("value");
+        promise.onComplete((value, throwable) -> blackhole.consume(value));
+    }
+
+    @Benchmark
+    public void completableFutureFailure(Blackhole blackhole) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.whenComplete((value, throwable) -> blackhole.consume(throwable));
+        future.completeExceptionally(exception);
+    }
+
+    @Benchmark
+    public void promiseFailure(Blackhole blackhole) {
+        Promise<String> promise = new Promise<>();
+        promise.onComplete((value, throwable) -> blackhole.consume(throwable));
+        promise.fail(exception);
+    }
+}
@@ -0,0 +1,130 @@
+package demo.completable_future.part5;
+
+import demo.completable_future.common.TaskScope;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// a fan-out of CPU-bound children that times out long before they finish: chunks of work the children
+// still run after the timeout (summed over the measured fan-outs), with plain futures and with a task scope
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskScopeBenchmark {
+
+    private static final int CHILDREN = 4;
+    private static final int CHUNKS = 200;
+    private static final long CHUNK_TOKENS = 10_000;
+    private static final Duration TIMEOUT = Duration.ofMillis(5);
+
+    private final AtomicLong wasted = new AtomicLong(); // chunks run after the timeout
+    private final AtomicInteger running = new AtomicInteger();
+
+    private ExecutorService executor;
+    private volatile long deadlineNanos;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Waste {
+
+        public long wastedChunks;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            wastedChunks = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void withoutScope(Waste waste) throws InterruptedException {
+        deadlineNanos = System.nanoTime() + TIMEOUT.toNanos();
+        List<CompletableFuture<Integer>> children = new ArrayList<>();
+        for (int i = 0; i < CHILDREN; i++) {
+            children.add(CompletableFuture.supplyAsync(this::child, executor));
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(children.toArray(new CompletableFuture<?>[0]));
+        try {
+            all.orTimeout(TIMEOUT.toNanos(), TimeUnit.NANOSECONDS).join();
+        } catch (RuntimeException e) {
+            children.forEach(child -> child.cancel(true)); // completes the futures, the bodies keep running
+        }
+        awaitBodies();
+        waste.wastedChunks = wasted.getAndSet(0);
+    }
+
+    @Benchmark
+    public void withScope(Waste waste) throws Exception {
+        deadlineNanos = System.nanoTime() + TIMEOUT.toNanos();
+        try (TaskScope scope = new TaskScope(executor)) {
+            for (int i = 0; i < CHILDREN; i++) {
+                scope.fork(this::child);
+            }
+            try {
+                scope.join(TIMEOUT);
+            } catch (TimeoutException e) {
+                // the children have been interrupted and have returned
+            }
+        }
+        waste.wastedChunks = wasted.getAndSet(0);
+    }
+
+    private int child() {
+        running.incrementAndGet();
+        try {
+            for (int chunk = 0; chunk < CHUNKS; chunk++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return chunk;
+                }
+                Blackhole.consumeCPU(CHUNK_TOKENS);
+                if (System.nanoTime() - deadlineNanos > 0) {
+                    wasted.incrementAndGet();
+                }
+            }
+            return CHUNKS;
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+
+    // waits for the abandoned bodies so they do not spill into the next invocation
+    private void awaitBodies() throws InterruptedException {
+        while (running.get() > 0) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package demo.completable_future.part5;
+
+import demo.completable_future.common.TimingWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// schedules a timeout for each of 1M in-flight futures, then completes them all before the timeouts fire
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class TimeoutBenchmark {
+
+    @Param({"1000000"})
+    public int timeouts;
+
+    private TimingWheel timingWheel;
+
+    @Setup
+    public void setUp() {
+        timingWheel = new TimingWheel();
+    }
+
+    @TearDown
+    public void tearDown() {
+        timingWheel.close();
+    }
+
+    @Benchmark
+    public void jdkOrTimeout() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[timeouts];
+        for (int i = 0; i < timeouts; i++) {
+            futures[i] = new CompletableFuture<>().orTimeout(10, TimeUnit.SECONDS);
+        }
+        completeAll(futures);
+    }
+
+    @Benchmark
+    public void timingWheelOrTimeout() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[timeouts];
+        for (int i = 0; i < timeouts; i++) {
+            futures[i] = timingWheel.orTimeout(new CompletableFuture<>(), 10, TimeUnit.SECONDS);
+        }
+        completeAll(futures);
+    }
+
+    @Benchmark
+    public void jdkCompleteOnTimeout() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[timeouts];
+        for (int i = 0; i < timeouts; i++) {
+            futures[i] = new CompletableFuture<>().completeOnTimeout(null, 10, TimeUnit.SECONDS);
+        }
+        completeAll(futures);
+    }
+
+    @Benchmark
+    public void timingWheelCompleteOnTimeout() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[timeouts];
+        for (int i = 0; i < timeouts; i++) {
+            futures[i] = timingWheel.completeOnTimeout(new CompletableFuture<>(), null, 10, TimeUnit.SECONDS);
+        }
+        completeAll(futures);
+    }
+
+    private static void completeAll(CompletableFuture<?>[] futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.complete(null);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package demo.completable_future.part7;
+
+import demo.completable_future.common.Futures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AllAsListBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int size;
+
+    @Benchmark
+    public List<Integer> allOfThenJoin() {
+        List<CompletableFuture<Integer>> futures = incompleteFutures();
+        CompletableFuture<List<Integer>> future = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList()));
+        complete(futures);
+        return future.join();
+    }
+
+    @Benchmark
+    public List<Integer> allAsList() {
+        List<CompletableFuture<Integer>> futures = incompleteFutures();
+        CompletableFuture<List<Integer>> future = Futures.allAsList(futures);
+        complete(futures);
+        return future.join();
+    }
+
+    private List<CompletableFuture<Integer>> incompleteFutures() {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            futures.add(new CompletableFuture<>());
+        }
+        return futures;
+    }
+
+    private static void complete(List<CompletableFuture<Integer>> futures) {
+        for (int i = 0; i < futures.size(); i++) {
+            futures.get(i).complete(i);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package demo.completable_future.part7;
+
+import demo.completable_future.common.AsyncMapProcessor;
+import demo.completable_future.common.Flows;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// 10000 items mapped by an async stage on the common pool and summed:
+// demand-driven processor with at most maxInFlight stages, or SubmissionPublisher feeding thenApplyAsync
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlowBenchmark {
+
+    private static final int ITEMS = 10_000;
+
+    @Param({"16", "256"})
+    public int maxInFlight;
+
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+    private List<Integer> items;
+
+    @Setup
+    public void setup() {
+        items = IntStream.range(0, ITEMS).boxed().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public long asyncMapProcessor() {
+        Flow.Publisher<Integer> mapped = AsyncMapProcessor.map(Flows.fromIterable(items), maxInFlight,
+                item -> CompletableFuture.supplyAsync(() -> item + 1, pool));
+        return Flows.reduce(mapped, 0L, (sum, item) -> sum + item).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public long submissionPublisher() {
+        AtomicLong sum = new AtomicLong();
+        AtomicLong pending = new AtomicLong(ITEMS);
+        CompletableFuture<Long> done = new CompletableFuture<>();
+
+        try (SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>(pool, maxInFlight)) {
+            publisher.subscribe(new Flow.Subscriber<Integer>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(Integer item) {
+                    CompletableFuture.completedFuture(item)
+                            .thenApplyAsync(i -> i + 1, pool)
+                            .thenAccept(i -> {
+                                sum.addAndGet(i);
+                                if (pending.decrementAndGet() == 0) {
+                                    done.complete(sum.get());
+                                }
+                            });
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            });
+            for (Integer item : items) {
+                publisher.submit(item); // blocks while maxInFlight items are buffered
+            }
+        }
+        return done.join();
+    }
+}
@@ -0,0 +1,130 @@
+package demo.completable_future.part8;
+
+import demo.completable_future.common.AsyncContext;
+import demo.completable_future.common.ContextExecutor;
+import demo.completable_future.common.ContextFuture;
+import demo.completable_future.common.MdcBinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// a chain of 10 thenApplyAsync hops per request, each on a pool thread; per hop: no propagation, the context
+// captured by the executor or carried by the future (with and without the MDC mirror), and a full MDC copy
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContextPropagationBenchmark {
+
+    private static final int HOPS = 10;
+
+    @Param({"none", "mdc"})
+    public String binder;
+
+    private ExecutorService pool;
+    private Executor contextExecutor;
+    private Executor mdcCopyExecutor;
+    private AsyncContext context;
+    private Map<String, String> mdc;
+
+    @Setup
+    public void setUp() {
+        pool = Executors.newSingleThreadExecutor();
+        contextExecutor = new ContextExecutor(pool);
+        mdcCopyExecutor = task -> {
+            Map<String, String> captured = MDC.getCopyOfContextMap();
+            pool.execute(() -> {
+                Map<String, String> previous = MDC.getCopyOfContextMap();
+                MDC.setContextMap(captured);
+                try {
+                    task.run();
+                } finally {
+                    if (previous == null) {
+                        MDC.clear();
+                    } else {
+                        MDC.setContextMap(previous);
+                    }
+                }
+            });
+        };
+        context = AsyncContext.of("correlationId", "42").with("tenant", "acme");
+        mdc = Map.of("correlationId", "42", "tenant", "acme", "user", "alice", "session", "s-1", "route", "/orders");
+        AsyncContext.setBinder(binder.equals("mdc") ? new MdcBinder("correlationId", "tenant") : (previous, next) -> {
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        AsyncContext.setBinder((previous, next) -> {
+        });
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HOPS)
+    public Integer plain() {
+        return chain(CompletableFuture.completedFuture(0), pool);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HOPS)
+    public Integer contextExecutor() {
+        AsyncContext previous = context.attach();
+        try {
+            return chain(CompletableFuture.completedFuture(0), contextExecutor);
+        } finally {
+            context.detach(previous);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HOPS)
+    public Integer contextFuture() {
+        ContextFuture<Integer> future = new ContextFuture<>(context, pool);
+        future.complete(0);
+        CompletableFuture<Integer> stage = future;
+        for (int i = 0; i < HOPS; i++) {
+            stage = stage.thenApplyAsync(value -> value + 1); // the default executor runs it in the context
+        }
+        return stage.join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HOPS)
+    public Integer mdcCopy() {
+        MDC.setContextMap(mdc);
+        try {
+            return chain(CompletableFuture.completedFuture(0), mdcCopyExecutor);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    private static Integer chain(CompletableFuture<Integer> future, Executor executor) {
+        for (int i = 0; i < HOPS; i++) {
+            future = future.thenApplyAsync(value -> value + 1, executor);
+        }
+        return future.join();
+    }
+}
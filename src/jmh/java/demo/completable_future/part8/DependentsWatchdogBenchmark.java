@@ -0,0 +1,61 @@
+package demo.completable_future.part8;
+
+import demo.completable_future.common.DependentsWatchdog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// one sample of 10 tracked futures with the given number of dependents each, against counting them directly
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DependentsWatchdogBenchmark {
+
+    private static final int FUTURES = 10;
+
+    @Param({"10", "1000", "100000"})
+    private int dependents;
+
+    private final DependentsWatchdog watchdog = new DependentsWatchdog(Integer.MAX_VALUE);
+    private final CompletableFuture<?>[] futures = new CompletableFuture<?>[FUTURES];
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < FUTURES; i++) {
+            CompletableFuture<String> future = watchdog.track("future" + i, new CompletableFuture<>());
+            for (int j = 0; j < dependents; j++) {
+                future.thenApply(String::length);
+            }
+            futures[i] = future;
+        }
+    }
+
+    @Benchmark
+    public int getNumberOfDependents() {
+        int total = 0;
+        for (CompletableFuture<?> future : futures) {
+            total += future.getNumberOfDependents();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public List<DependentsWatchdog.Sample> sample() {
+        return watchdog.sample();
+    }
+}
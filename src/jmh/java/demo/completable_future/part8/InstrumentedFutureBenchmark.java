@@ -0,0 +1,74 @@
+package demo.completable_future.part8;
+
+import demo.completable_future.common.InstrumentedFuture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+// the score is the cost per stage, so the difference between the pairs is the instrumentation overhead;
+// a sync stage reads the clock twice, so twoClockReads is the part of it that depends on the platform's nanoTime
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstrumentedFutureBenchmark {
+
+    private static final int STAGES = 100;
+
+    private static final Executor DIRECT = Runnable::run;
+
+    private final InstrumentedFuture.Metrics metrics = new InstrumentedFuture.Metrics();
+
+    @Benchmark
+    @OperationsPerInvocation(STAGES)
+    public Integer plainThenApply() {
+        return chain(new CompletableFuture<>(), false);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STAGES)
+    public Integer instrumentedThenApply() {
+        return chain(new InstrumentedFuture<>(metrics, DIRECT), false);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STAGES)
+    public Integer plainThenApplyAsync() {
+        return chain(new CompletableFuture<>(), true);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STAGES)
+    public Integer instrumentedThenApplyAsync() {
+        return chain(new InstrumentedFuture<>(metrics, DIRECT), true);
+    }
+
+    @Benchmark
+    public long twoClockReads() {
+        return System.nanoTime() - System.nanoTime();
+    }
+
+    private static Integer chain(CompletableFuture<Integer> source, boolean async) {
+        CompletableFuture<Integer> future = source;
+        for (int i = 0; i < STAGES; i++) {
+            future = async
+                    ? future.thenApplyAsync(value -> value + 1, DIRECT)
+                    : future.thenApply(value -> value + 1);
+        }
+        source.complete(0);
+        return future.join();
+    }
+}
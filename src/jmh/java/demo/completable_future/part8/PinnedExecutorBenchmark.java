@@ -0,0 +1,68 @@
+package demo.completable_future.part8;
+
+import demo.completable_future.common.PinnedExecutorFuture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// a chain started on a dedicated pool: plain *Async stages hop to commonPool and back, pinned ones stay put
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PinnedExecutorBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int depth;
+
+    private ExecutorService executorService;
+
+    @Setup
+    public void setUp() {
+        executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public Integer commonPoolDefault() {
+        CompletableFuture<Integer> future = CompletableFuture.supplyAsync(() -> 0, executorService);
+        for (int i = 0; i < depth; i++) {
+            future = future
+                    .thenApplyAsync(value -> value + 1) // commonPool
+                    .thenComposeAsync(value -> CompletableFuture.supplyAsync(() -> value, executorService));
+        }
+        return future.join();
+    }
+
+    @Benchmark
+    public Integer pinnedDefault() {
+        CompletableFuture<Integer> future = PinnedExecutorFuture.supplyAsync(() -> 0, executorService);
+        for (int i = 0; i < depth; i++) {
+            future = future
+                    .thenApplyAsync(value -> value + 1) // executorService
+                    .thenComposeAsync(value -> CompletableFuture.supplyAsync(() -> value, executorService));
+        }
+        return future.join();
+    }
+}
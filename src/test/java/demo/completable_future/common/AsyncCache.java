@@ -0,0 +1,128 @@
+package demo.completable_future.common;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// caches futures, not values: concurrent misses on one key share a single in-flight load,
+// and failed loads are removed instead of being cached
+public class AsyncCache<K, V> {
+
+    private final Function<? super K, ? extends CompletableFuture<V>> loader;
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+
+    private final ConcurrentHashMap<K, Entry<K, V>> map = new ConcurrentHashMap<>();
+
+    // every entry ever put in the map, in insertion order; entries already removed from the map are skipped on eviction
+    private final Queue<Entry<K, V>> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger clockSize = new AtomicInteger();
+
+    public AsyncCache(Function<? super K, ? extends CompletableFuture<V>> loader, int maximumSize) {
+        this(loader, maximumSize, null);
+    }
+
+    // entries are reloaded on the first get after the ttl has passed since they were loaded
+    public AsyncCache(Function<? super K, ? extends CompletableFuture<V>> loader, int maximumSize, Duration ttl) {
+        this(loader, maximumSize, ttl, System::nanoTime);
+    }
+
+    // the ticker is the source of nanoTime readings, e.g. a VirtualClock
+    public AsyncCache(Function<? super K, ? extends CompletableFuture<V>> loader, int maximumSize, Duration ttl, LongSupplier ticker) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.loader = loader;
+        this.maximumSize = maximumSize;
+        this.ttlNanos = (ttl != null) ? ttl.toNanos() : 0;
+        this.ticker = ticker;
+    }
+
+    // the returned future is a copy, so a caller that cancels or completes it does not affect other callers
+    public CompletableFuture<V> get(K key) {
+        Entry<K, V> entry = map.get(key);
+        if (entry == null || isExpired(entry)) {
+            entry = load(key, entry);
+        } else if (!entry.referenced) {
+            entry.referenced = true; // read before write: a hot entry does not bounce its cache line between readers
+        }
+        return entry.future.copy();
+    }
+
+    public void invalidate(K key) {
+        map.remove(key);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    private boolean isExpired(Entry<K, V> entry) {
+        return ttlNanos != 0 && entry.future.isDone() && ticker.getAsLong() - entry.loadedNanos >= ttlNanos;
+    }
+
+    private Entry<K, V> load(K key, Entry<K, V> expired) {
+        Entry<K, V> created = new Entry<>(key, (ttlNanos != 0) ? ticker.getAsLong() : 0);
+        Entry<K, V> existing = (expired != null && map.replace(key, expired, created)) ? null : map.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing; // another caller is already loading this key
+        }
+
+        CompletableFuture<V> loaded;
+        try {
+            loaded = loader.apply(key);
+        } catch (Throwable t) {
+            loaded = CompletableFuture.failedFuture(t);
+        }
+        loaded.whenComplete((value, throwable) -> {
+            if (throwable != null) {
+                map.remove(key, created); // before completing, so a caller that sees the failure can retry with a new load
+                created.future.completeExceptionally(throwable);
+            } else {
+                created.future.complete(value);
+            }
+        });
+
+        clock.add(created);
+        if (clockSize.incrementAndGet() > maximumSize) {
+            evict();
+        }
+        return created;
+    }
+
+    // second-chance (CLOCK) approximation of LRU: an entry read since the last pass goes back to the tail,
+    // otherwise it is evicted; every inserting thread evicts for itself, so none of them drains for the others
+    private void evict() {
+        Entry<K, V> entry;
+        while (clockSize.get() > maximumSize && (entry = clock.poll()) != null) {
+            if (map.get(entry.key) != entry) {
+                clockSize.decrementAndGet(); // already invalidated, failed or reloaded
+            } else if (entry.referenced) {
+                entry.referenced = false;
+                clock.add(entry);
+            } else {
+                map.remove(entry.key, entry);
+                clockSize.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class Entry<K, V> {
+
+        private final K key;
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private final long loadedNanos;
+        private volatile boolean referenced;
+
+        private Entry(K key, long loadedNanos) {
+            this.key = key;
+            this.loadedNanos = loadedNanos;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package demo.completable_future.common;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+// a small immutable set of request values (correlation id, tenant) that follows a request across threads:
+// a hop captures it as one reference and restores it around the task, instead of copying the whole MDC map,
+// and a binder mirrors it into thread-bound logging state such as the MDC only when it changes
+public final class AsyncContext {
+
+    public static final AsyncContext EMPTY = new AsyncContext(new String[0]);
+
+    private static final ThreadLocal<AsyncContext> current = ThreadLocal.withInitial(() -> EMPTY);
+    private static volatile Binder binder = (previous, next) -> {
+    };
+
+    private final String[] entries; // key, value, key, value, ...: a handful of entries, so a scan beats a map
+
+    private AsyncContext(String[] entries) {
+        this.entries = entries;
+    }
+
+    public static AsyncContext current() {
+        return current.get();
+    }
+
+    public static void setBinder(Binder binder) {
+        AsyncContext.binder = binder;
+    }
+
+    public static Binder binder() {
+        return binder;
+    }
+
+    public static AsyncContext of(String key, String value) {
+        return EMPTY.with(key, value);
+    }
+
+    public AsyncContext with(String key, String value) {
+        for (int i = 0; i < entries.length; i += 2) {
+            if (entries[i].equals(key)) {
+                String[] copy = entries.clone();
+                copy[i + 1] = value;
+                return new AsyncContext(copy);
+            }
+        }
+        String[] copy = Arrays.copyOf(entries, entries.length + 2);
+        copy[entries.length] = key;
+        copy[entries.length + 1] = value;
+        return new AsyncContext(copy);
+    }
+
+    public String get(String key) {
+        for (int i = 0; i < entries.length; i += 2) {
+            if (entries[i].equals(key)) {
+                return entries[i + 1];
+            }
+        }
+        return null;
+    }
+
+    // makes this the current context and returns the previous one, to be passed to detach
+    public AsyncContext attach() {
+        AsyncContext previous = current.get();
+        if (previous != this) {
+            current.set(this);
+            binder.bind(previous, this);
+        }
+        return previous;
+    }
+
+    public void detach(AsyncContext previous) {
+        if (previous != this) {
+            current.set(previous);
+            binder.bind(this, previous);
+        }
+    }
+
+    public void run(Runnable task) {
+        AsyncContext previous = attach();
+        try {
+            task.run();
+        } finally {
+            detach(previous);
+        }
+    }
+
+    public <T> T call(Supplier<T> supplier) {
+        AsyncContext previous = attach();
+        try {
+            return supplier.get();
+        } finally {
+            detach(previous);
+        }
+    }
+
+    // the task runs in this context on whatever thread runs it
+    public Runnable wrap(Runnable task) {
+        return () -> run(task);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < entries.length; i += 2) {
+            builder.append(i == 0 ? "" : ", ").append(entries[i]).append('=').append(entries[i + 1]);
+        }
+        return builder.append('}').toString();
+    }
+
+    // called on the thread whose context changes, only when it does
+    public interface Binder {
+
+        void bind(AsyncContext previous, AsyncContext next);
+    }
+}
@@ -0,0 +1,334 @@
+package demo.completable_future.common;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// runs a graph of async nodes: a node starts on the thread that completes its last input; besides the futures
+// the node functions return, a run creates its own future and one whenComplete dependent per node whose stage is
+// still pending, and no allOf or thenCombine chains; each run reports per-node timings and the critical path
+public class AsyncGraph {
+
+    private final List<Node> nodes; // in topological order
+    private final Map<String, Integer> indexes;
+    private final LongSupplier ticker;
+
+    private AsyncGraph(List<Node> nodes, LongSupplier ticker) {
+        this.nodes = nodes;
+        this.ticker = ticker;
+        this.indexes = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            indexes.put(nodes.get(i).name, i);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public CompletableFuture<Run> run() {
+        return new Execution().start();
+    }
+
+    public static class Builder {
+
+        private final Map<String, Declaration> declarations = new LinkedHashMap<>();
+        private LongSupplier ticker = System::nanoTime;
+
+        public Builder node(String name, Function<Inputs, ? extends CompletionStage<?>> function, String... dependencies) {
+            if (declarations.putIfAbsent(name, new Declaration(name, List.of(dependencies), function)) != null) {
+                throw new IllegalArgumentException("duplicate node: " + name);
+            }
+            return this;
+        }
+
+        // the ticker is the source of nanoTime readings for the timings, e.g. a VirtualClock
+        public Builder ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        // orders the nodes topologically (Kahn's algorithm), rejecting unknown dependencies and cycles
+        public AsyncGraph build() {
+            Map<String, Integer> remaining = new HashMap<>();
+            Map<String, List<String>> dependents = new HashMap<>();
+            Deque<String> ready = new ArrayDeque<>();
+            for (Declaration declaration : declarations.values()) {
+                for (String dependency : declaration.dependencies) {
+                    if (!declarations.containsKey(dependency)) {
+                        throw new IllegalArgumentException("node " + declaration.name + " depends on unknown node " + dependency);
+                    }
+                    dependents.computeIfAbsent(dependency, name -> new ArrayList<>()).add(declaration.name);
+                }
+                remaining.put(declaration.name, declaration.dependencies.size());
+                if (declaration.dependencies.isEmpty()) {
+                    ready.add(declaration.name);
+                }
+            }
+
+            List<String> order = new ArrayList<>();
+            while (!ready.isEmpty()) {
+                String name = ready.poll();
+                order.add(name);
+                for (String dependent : dependents.getOrDefault(name, List.of())) {
+                    if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+                        ready.add(dependent);
+                    }
+                }
+            }
+            if (order.size() != declarations.size()) {
+                throw new IllegalArgumentException("the graph has a cycle");
+            }
+
+            Map<String, Integer> indexes = new HashMap<>();
+            for (int i = 0; i < order.size(); i++) {
+                indexes.put(order.get(i), i);
+            }
+            List<Node> nodes = new ArrayList<>();
+            for (String name : order) {
+                Declaration declaration = declarations.get(name);
+                int[] dependencyIndexes = declaration.dependencies.stream().mapToInt(indexes::get).toArray();
+                int[] dependentIndexes = dependents.getOrDefault(name, List.of()).stream().mapToInt(indexes::get).toArray();
+                nodes.add(new Node(name, dependencyIndexes, dependentIndexes, declaration.function));
+            }
+            return new AsyncGraph(nodes, ticker);
+        }
+    }
+
+    // the results of a node's declared dependencies
+    public class Inputs {
+
+        private final Node node;
+        private final Object[] results;
+
+        private Inputs(Node node, Object[] results) {
+            this.node = node;
+            this.results = results;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T get(String name) {
+            Integer index = indexes.get(name);
+            for (int dependency : node.dependencies) {
+                if (index != null && dependency == index) {
+                    return (T) results[index];
+                }
+            }
+            throw new IllegalArgumentException("node " + node.name + " does not depend on " + name);
+        }
+    }
+
+    public class Run {
+
+        private final Object[] results;
+        private final long[] startNanos;
+        private final long[] endNanos;
+        private final long runStartNanos;
+
+        private Run(Object[] results, long[] startNanos, long[] endNanos, long runStartNanos) {
+            this.results = results;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.runStartNanos = runStartNanos;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T get(String name) {
+            Integer index = indexes.get(name);
+            if (index == null) {
+                throw new IllegalArgumentException("unknown node: " + name);
+            }
+            return (T) results[index];
+        }
+
+        public Duration duration() {
+            long end = runStartNanos;
+            for (long nanos : endNanos) {
+                end = Math.max(end, nanos);
+            }
+            return Duration.ofNanos(end - runStartNanos);
+        }
+
+        // time from the start of the run until the node started, and from then until its stage completed
+        public Duration startOffset(String name) {
+            return Duration.ofNanos(startNanos[index(name)] - runStartNanos);
+        }
+
+        public Duration duration(String name) {
+            int index = index(name);
+            return Duration.ofNanos(endNanos[index] - startNanos[index]);
+        }
+
+        // walks back from the node that finished last, each time to the input that completed last; on a tie
+        // the later node in topological order wins, as a dependent finishes no earlier than its inputs
+        public List<String> criticalPath() {
+            int current = 0;
+            for (int i = 1; i < nodes.size(); i++) {
+                if (endNanos[i] >= endNanos[current]) {
+                    current = i;
+                }
+            }
+            List<String> path = new ArrayList<>();
+            while (current >= 0) {
+                path.add(nodes.get(current).name);
+                int latest = -1;
+                for (int dependency : nodes.get(current).dependencies) {
+                    if (latest < 0 || endNanos[dependency] > endNanos[latest]) {
+                        latest = dependency;
+                    }
+                }
+                current = latest;
+            }
+            Collections.reverse(path);
+            return path;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder("run took ").append(duration().toMillis()).append(" ms, critical path ")
+                    .append(String.join(" -> ", criticalPath()));
+            for (Node node : nodes) {
+                report.append(System.lineSeparator()).append(String.format("  %-20s started at %6d ms, took %6d ms",
+                        node.name, startOffset(node.name).toMillis(), duration(node.name).toMillis()));
+            }
+            return report.toString();
+        }
+
+        private int index(String name) {
+            Integer index = indexes.get(name);
+            if (index == null) {
+                throw new IllegalArgumentException("unknown node: " + name);
+            }
+            return index;
+        }
+    }
+
+    // a node's results and timings are written before the atomic decrements that let its dependents
+    // and the run's completion read them, so plain arrays are enough
+    private final class Execution {
+
+        private final int size = nodes.size();
+        private final Object[] results = new Object[size];
+        private final long[] startNanos = new long[size];
+        private final long[] endNanos = new long[size];
+        private final AtomicIntegerArray remainingInputs = new AtomicIntegerArray(size);
+        private final AtomicInteger remainingNodes = new AtomicInteger(size);
+        private final CompletableFuture<Run> run = new CompletableFuture<>();
+        private final long runStartNanos = ticker.getAsLong();
+
+        CompletableFuture<Run> start() {
+            for (int i = 0; i < size; i++) {
+                remainingInputs.set(i, nodes.get(i).dependencies.length);
+            }
+            if (size == 0) {
+                run.complete(new Run(results, startNanos, endNanos, runStartNanos));
+            }
+            Deque<Integer> ready = new ArrayDeque<>();
+            for (int i = 0; i < size; i++) {
+                if (nodes.get(i).dependencies.length == 0) {
+                    ready.add(i);
+                }
+            }
+            launch(ready);
+            return run;
+        }
+
+        // a work list rather than recursion, so a long chain of nodes whose stages are already complete
+        // runs in a loop instead of one stack frame per node
+        private void launch(Deque<Integer> ready) {
+            Integer index;
+            while ((index = ready.poll()) != null && !run.isDone()) {
+                int i = index;
+                Node node = nodes.get(i);
+                startNanos[i] = ticker.getAsLong();
+                CompletionStage<?> stage;
+                try {
+                    stage = node.function.apply(new Inputs(node, results));
+                } catch (Throwable t) {
+                    stage = CompletableFuture.failedFuture(t);
+                }
+                if (stage == null) {
+                    stage = CompletableFuture.failedFuture(new NullPointerException("node " + node.name + " returned null"));
+                }
+                if (stage instanceof CompletableFuture<?> future && future.isDone()) {
+                    switch (future.state()) {
+                        case SUCCESS -> complete(i, future.resultNow(), null, ready);
+                        case FAILED -> complete(i, null, future.exceptionNow(), ready);
+                        default -> complete(i, null, new CancellationException(), ready);
+                    }
+                } else {
+                    stage.whenComplete((result, throwable) -> {
+                        Deque<Integer> next = new ArrayDeque<>();
+                        complete(i, result, throwable, next);
+                        launch(next);
+                    });
+                }
+            }
+        }
+
+        // adds the dependents whose last input this was to the work list
+        private void complete(int index, Object result, Throwable throwable, Deque<Integer> ready) {
+            Node node = nodes.get(index);
+            if (throwable != null) {
+                Throwable cause = (throwable instanceof CompletionException && throwable.getCause() != null) ? throwable.getCause() : throwable;
+                run.completeExceptionally(new CompletionException("node " + node.name + " failed", cause));
+                return;
+            }
+            endNanos[index] = ticker.getAsLong();
+            results[index] = result;
+            if (run.isDone()) {
+                return; // another node failed, do not start more work
+            }
+            for (int dependent : node.dependents) {
+                if (remainingInputs.decrementAndGet(dependent) == 0) {
+                    ready.add(dependent);
+                }
+            }
+            if (remainingNodes.decrementAndGet() == 0) {
+                run.complete(new Run(results, startNanos, endNanos, runStartNanos));
+            }
+        }
+    }
+
+    private static final class Node {
+
+        private final String name;
+        private final int[] dependencies;
+        private final int[] dependents;
+        private final Function<Inputs, ? extends CompletionStage<?>> function;
+
+        private Node(String name, int[] dependencies, int[] dependents, Function<Inputs, ? extends CompletionStage<?>> function) {
+            this.name = name;
+            this.dependencies = dependencies;
+            this.dependents = dependents;
+            this.function = function;
+        }
+    }
+
+    private static final class Declaration {
+
+        private final String name;
+        private final List<String> dependencies;
+        private final Function<AsyncGraph.Inputs, ? extends CompletionStage<?>> function;
+
+        private Declaration(String name, List<String> dependencies, Function<AsyncGraph.Inputs, ? extends CompletionStage<?>> function) {
+            this.name = name;
+            this.dependencies = dependencies;
+            this.function = function;
+        }
+    }
+}
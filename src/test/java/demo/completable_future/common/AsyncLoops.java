@@ -0,0 +1,114 @@
+package demo.completable_future.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// async loops that run in constant stack and memory: an iteration whose stage is already complete
+// continues in the same while loop, and only a pending stage suspends the loop until it completes,
+// so there is neither recursion nor an executor hop per iteration
+public class AsyncLoops {
+
+    private AsyncLoops() {
+    }
+
+    // value = seed; while (condition(value)) value = await step(value); return value
+    public static <T> CompletableFuture<T> iterateAsync(T seed, Predicate<? super T> condition,
+                                                        Function<? super T, ? extends CompletionStage<T>> step) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        new Loop<>(condition, step, result).run(seed);
+        return result;
+    }
+
+    // repeats the body until its stage completes with false
+    public static CompletableFuture<Void> whileAsync(Supplier<? extends CompletionStage<Boolean>> body) {
+        return iterateAsync(Boolean.TRUE, Boolean::booleanValue, ignored -> body.get()).thenApply(ignored -> null);
+    }
+
+    private static final class Loop<T> {
+
+        private final Predicate<? super T> condition;
+        private final Function<? super T, ? extends CompletionStage<T>> step;
+        private final CompletableFuture<T> result;
+
+        private Loop(Predicate<? super T> condition, Function<? super T, ? extends CompletionStage<T>> step, CompletableFuture<T> result) {
+            this.condition = condition;
+            this.step = step;
+            this.result = result;
+        }
+
+        private void run(T value) {
+            try {
+                while (condition.test(value)) {
+                    CompletionStage<T> stage = step.apply(value);
+                    if (stage instanceof CompletableFuture<T> future && future.isDone()) {
+                        if (future.isCompletedExceptionally()) {
+                            fail(future.exceptionNow());
+                            return;
+                        }
+                        value = future.resultNow(); // fast path: no callback, no allocation
+                        continue;
+                    }
+                    Resume<T> resume = new Resume<>(this);
+                    stage.whenComplete(resume);
+                    if (!resume.suspend()) {
+                        return; // the stage is pending, its completion continues the loop
+                    }
+                    if (resume.throwable != null) {
+                        fail(resume.throwable);
+                        return;
+                    }
+                    value = resume.value; // completed while the callback was registered
+                }
+                result.complete(value);
+            } catch (Throwable t) {
+                fail(t);
+            }
+        }
+
+        private void fail(Throwable throwable) {
+            result.completeExceptionally((throwable instanceof CompletionException && throwable.getCause() != null) ? throwable.getCause() : throwable);
+        }
+    }
+
+    // the loop and the callback race to move the state from RUNNING: if the callback wins, the stage completed
+    // synchronously and the loop continues with the stored outcome; if the loop wins, the callback resumes it later
+    private static final class Resume<T> extends AtomicInteger implements BiConsumer<T, Throwable> {
+
+        private static final int RUNNING = 0;
+        private static final int COMPLETED = 1;
+        private static final int SUSPENDED = 2;
+
+        private final Loop<T> loop;
+        private T value;
+        private Throwable throwable;
+
+        private Resume(Loop<T> loop) {
+            this.loop = loop;
+        }
+
+        // true if the outcome is already available to the loop
+        boolean suspend() {
+            return !compareAndSet(RUNNING, SUSPENDED);
+        }
+
+        @Override
+        public void accept(T value, Throwable throwable) {
+            this.value = value;
+            this.throwable = throwable;
+            if (compareAndSet(RUNNING, COMPLETED)) {
+                return;
+            }
+            if (throwable != null) {
+                loop.fail(throwable);
+            } else {
+                loop.run(value);
+            }
+        }
+    }
+}
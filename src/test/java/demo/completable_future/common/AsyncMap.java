@@ -0,0 +1,167 @@
+package demo.completable_future.common;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// maps a source of any length through an async function with at most maxInFlight stages in flight;
+// the next input is pulled only when a slot frees, so memory stays bounded by maxInFlight
+public class AsyncMap<T, R> {
+
+    private static final Object NULL = new Object();
+
+    private final Iterator<? extends T> source;
+    private final int maxInFlight;
+    private final Function<? super T, ? extends CompletionStage<? extends R>> mapper;
+    private final Consumer<? super R> sink;
+    private final boolean ordered;
+
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    // ordered mode: results by input index modulo maxInFlight, emitted from the head
+    private final AtomicReferenceArray<Object> slots;
+    // unordered mode: results in completion order
+    private final Queue<Object> completed;
+
+    // accessed by the draining thread only
+    private long launched;
+    private long emitted;
+    private boolean exhausted;
+
+    private AsyncMap(Iterator<? extends T> source, int maxInFlight,
+                     Function<? super T, ? extends CompletionStage<? extends R>> mapper,
+                     Consumer<? super R> sink, boolean ordered) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.source = source;
+        this.maxInFlight = maxInFlight;
+        this.mapper = mapper;
+        this.sink = sink;
+        this.ordered = ordered;
+        this.slots = ordered ? new AtomicReferenceArray<>(maxInFlight) : null;
+        this.completed = ordered ? null : new ConcurrentLinkedQueue<>();
+    }
+
+    // the sink receives results in input order, one at a time
+    public static <T, R> CompletableFuture<Void> ordered(Iterator<? extends T> source, int maxInFlight,
+                                                         Function<? super T, ? extends CompletionStage<? extends R>> mapper,
+                                                         Consumer<? super R> sink) {
+        return new AsyncMap<T, R>(source, maxInFlight, mapper, sink, true).start();
+    }
+
+    // the sink receives results in completion order, one at a time
+    public static <T, R> CompletableFuture<Void> unordered(Iterator<? extends T> source, int maxInFlight,
+                                                           Function<? super T, ? extends CompletionStage<? extends R>> mapper,
+                                                           Consumer<? super R> sink) {
+        return new AsyncMap<T, R>(source, maxInFlight, mapper, sink, false).start();
+    }
+
+    public static <T, R> CompletableFuture<Void> ordered(Stream<? extends T> source, int maxInFlight,
+                                                         Function<? super T, ? extends CompletionStage<? extends R>> mapper,
+                                                         Consumer<? super R> sink) {
+        return ordered(source.iterator(), maxInFlight, mapper, sink).whenComplete((v, t) -> source.close());
+    }
+
+    public static <T, R> CompletableFuture<Void> unordered(Stream<? extends T> source, int maxInFlight,
+                                                           Function<? super T, ? extends CompletionStage<? extends R>> mapper,
+                                                           Consumer<? super R> sink) {
+        return unordered(source.iterator(), maxInFlight, mapper, sink).whenComplete((v, t) -> source.close());
+    }
+
+    private CompletableFuture<Void> start() {
+        drain();
+        return done;
+    }
+
+    private void onComplete(long index, R value, Throwable throwable) {
+        Object result = (throwable != null) ? new Failure(throwable) : (value != null ? value : NULL);
+        if (ordered) {
+            slots.set((int) (index % maxInFlight), result);
+        } else {
+            completed.add(result);
+        }
+        drain();
+    }
+
+    // a stage that completes synchronously only bumps wip, so the loop below runs it without recursion
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            try {
+                while (!done.isDone() && (emit() | launch())) {
+                    // repeat while progress is made
+                }
+                if (exhausted && emitted == launched) {
+                    done.complete(null);
+                }
+            } catch (Throwable t) {
+                done.completeExceptionally(t);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean emit() {
+        boolean progress = false;
+        Object result;
+        while (!done.isDone() && (result = poll()) != null) {
+            emitted++;
+            progress = true;
+            if (result instanceof Failure) {
+                done.completeExceptionally(((Failure) result).throwable);
+            } else {
+                sink.accept(result == NULL ? null : (R) result);
+            }
+        }
+        return progress;
+    }
+
+    private Object poll() {
+        if (!ordered) {
+            return completed.poll();
+        }
+        int slot = (int) (emitted % maxInFlight);
+        Object result = slots.get(slot);
+        if (result != null) {
+            slots.set(slot, null);
+        }
+        return result;
+    }
+
+    private boolean launch() {
+        boolean progress = false;
+        while (!done.isDone() && !exhausted && launched - emitted < maxInFlight) {
+            if (!source.hasNext()) {
+                exhausted = true;
+                break;
+            }
+            long index = launched++;
+            progress = true;
+            mapper.apply(source.next())
+                    .whenComplete((value, throwable) -> onComplete(index, value, throwable));
+        }
+        return progress;
+    }
+
+    private static final class Failure {
+
+        private final Throwable throwable;
+
+        private Failure(Throwable throwable) {
+            this.throwable = throwable;
+        }
+    }
+}
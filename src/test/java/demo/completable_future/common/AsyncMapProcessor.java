@@ -0,0 +1,197 @@
+package demo.completable_future.common;
+
+import java.util.Queue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+// maps items through an async function and emits the results in input order;
+// upstream is asked only for as many items as downstream demand and maxInFlight both allow
+public class AsyncMapProcessor<T, R> implements Flow.Processor<T, R> {
+
+    private static final Object NULL = new Object();
+
+    private final Function<? super T, ? extends CompletionStage<? extends R>> mapper;
+    private final int maxInFlight;
+
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final Queue<T> received = new ConcurrentLinkedQueue<>();
+    private final AtomicReferenceArray<Object> slots; // results by index modulo maxInFlight, emitted from the head
+
+    private final AtomicReference<Flow.Subscriber<? super R>> downstream = new AtomicReference<>();
+
+    private volatile Flow.Subscription upstream;
+    private volatile boolean upstreamDone;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+
+    // accessed by the draining thread only
+    private long upstreamRequested;
+    private long launched;
+    private long emitted;
+    private boolean terminated;
+
+    public AsyncMapProcessor(Function<? super T, ? extends CompletionStage<? extends R>> mapper, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.mapper = mapper;
+        this.maxInFlight = maxInFlight;
+        this.slots = new AtomicReferenceArray<>(maxInFlight);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(T item) {
+        received.add(item);
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(Flows.CANCELLED);
+            subscriber.onError(new IllegalStateException("only one subscriber is supported"));
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    error = new IllegalArgumentException("non-positive request: " + n);
+                    cancelled = true;
+                } else {
+                    requested.getAndAccumulate(n, (current, added) -> (current + added < 0) ? Long.MAX_VALUE : current + added);
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                drain();
+            }
+        });
+    }
+
+    private void onResult(long index, R value, Throwable throwable) {
+        if (throwable != null) {
+            error = throwable;
+            cancelled = true;
+        } else {
+            slots.set((int) (index % maxInFlight), (value != null) ? value : NULL);
+        }
+        drain();
+    }
+
+    // same serialization as AsyncMap: whoever increments wip from zero runs the loop, everyone else only bumps it
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Flow.Subscription subscription = upstream;
+            Flow.Subscriber<? super R> subscriber = downstream.get();
+            if (!terminated && subscription != null && subscriber != null) {
+                try {
+                    drainLoop(subscription, subscriber);
+                } catch (Throwable t) {
+                    error = t;
+                    cancelled = true;
+                    drainLoop(subscription, subscriber);
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drainLoop(Flow.Subscription subscription, Flow.Subscriber<? super R> subscriber) {
+        while (!terminated) {
+            if (cancelled) {
+                terminated = true;
+                subscription.cancel();
+                if (error != null) {
+                    subscriber.onError(error);
+                }
+                return;
+            }
+
+            boolean progress = false;
+
+            T item;
+            while ((item = received.poll()) != null) {
+                long index = launched++;
+                progress = true;
+                mapper.apply(item).whenComplete((value, throwable) -> onResult(index, value, throwable));
+            }
+
+            Object result;
+            while (emitted < requested.get() && (result = slots.get((int) (emitted % maxInFlight))) != null) {
+                slots.set((int) (emitted % maxInFlight), null);
+                emitted++;
+                progress = true;
+                subscriber.onNext(result == NULL ? null : (R) result);
+            }
+
+            if (upstreamDone && received.isEmpty() && (error != null || launched == emitted)) {
+                terminated = true;
+                if (error != null) {
+                    subscriber.onError(error);
+                } else {
+                    subscriber.onComplete();
+                }
+                return;
+            }
+
+            // keep received + requested-but-not-received within both the free slots and the unmet demand
+            long window = emitted + Math.min(maxInFlight, requested.get() - emitted);
+            long toRequest = window - upstreamRequested;
+            if (!upstreamDone && toRequest > 0) {
+                upstreamRequested += toRequest;
+                progress = true;
+                subscription.request(toRequest);
+            }
+
+            if (!progress) {
+                return;
+            }
+        }
+    }
+
+    public static <T, R> Flow.Publisher<R> map(Flow.Publisher<T> source, int maxInFlight,
+                                               Function<? super T, ? extends CompletionStage<? extends R>> mapper) {
+        AsyncMapProcessor<T, R> processor = new AsyncMapProcessor<>(mapper, maxInFlight);
+        source.subscribe(processor);
+        return processor;
+    }
+}
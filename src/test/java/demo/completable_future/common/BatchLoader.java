@@ -0,0 +1,153 @@
+package demo.completable_future.common;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+// gathers single-key loads into one batch call, which is made when maxBatchSize keys arrive or maxDelay passes
+// after the first key of the batch; the i-th value of the batch result completes the future of the i-th key
+public class BatchLoader<K, V> {
+
+    private final Function<? super List<K>, ? extends CompletableFuture<? extends List<? extends V>>> batchLoader;
+    private final int maxBatchSize;
+    private final Executor flushExecutor;
+
+    private final AtomicReference<Batch<K, V>> current;
+
+    public BatchLoader(Function<? super List<K>, ? extends CompletableFuture<? extends List<? extends V>>> batchLoader,
+                       int maxBatchSize, Duration maxDelay) {
+        this(batchLoader, maxBatchSize, maxDelay, ForkJoinPool.commonPool());
+    }
+
+    // batches closed by maxDelay are sent to the batch loader from the executor
+    public BatchLoader(Function<? super List<K>, ? extends CompletableFuture<? extends List<? extends V>>> batchLoader,
+                       int maxBatchSize, Duration maxDelay, Executor executor) {
+        this(batchLoader, maxBatchSize, CompletableFuture.delayedExecutor(maxDelay.toNanos(), TimeUnit.NANOSECONDS, executor));
+    }
+
+    // maxDelay on virtual time
+    public BatchLoader(Function<? super List<K>, ? extends CompletableFuture<? extends List<? extends V>>> batchLoader,
+                       int maxBatchSize, Duration maxDelay, Executor executor, VirtualClock clock) {
+        this(batchLoader, maxBatchSize, clock.delayedExecutor(maxDelay.toNanos(), TimeUnit.NANOSECONDS, executor));
+    }
+
+    private BatchLoader(Function<? super List<K>, ? extends CompletableFuture<? extends List<? extends V>>> batchLoader,
+                        int maxBatchSize, Executor flushExecutor) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.batchLoader = batchLoader;
+        this.maxBatchSize = maxBatchSize;
+        this.flushExecutor = flushExecutor;
+        this.current = new AtomicReference<>(new Batch<>(maxBatchSize));
+    }
+
+    public CompletableFuture<V> load(K key) {
+        Request<K, V> request = new Request<>(key);
+        while (true) {
+            Batch<K, V> batch = current.get();
+            int index = batch.claimed.getAndIncrement();
+            if (index >= maxBatchSize) {
+                replace(batch); // full or closed by the timer, help replace it
+                continue;
+            }
+            batch.requests.set(index, request);
+            if (index == 0) {
+                flushExecutor.execute(() -> close(batch));
+            }
+            if (index == maxBatchSize - 1) {
+                replace(batch);
+                batch.size = maxBatchSize;
+            }
+            batch.filled.incrementAndGet();
+            tryDispatch(batch);
+            return request.future;
+        }
+    }
+
+    // closing claims every remaining slot at once, so slots already claimed are the batch
+    private void close(Batch<K, V> batch) {
+        replace(batch);
+        int claimed = batch.claimed.getAndSet(maxBatchSize);
+        if (claimed < maxBatchSize) {
+            batch.size = claimed;
+            tryDispatch(batch);
+        }
+    }
+
+    private void replace(Batch<K, V> batch) {
+        if (current.get() == batch) {
+            current.compareAndSet(batch, new Batch<>(maxBatchSize));
+        }
+    }
+
+    // called after each write and after closing; the size is written before filled is read and vice versa,
+    // so whichever of the two happens last sees the batch complete
+    private void tryDispatch(Batch<K, V> batch) {
+        int size = batch.size;
+        if (size < 0 || batch.filled.get() != size || !batch.dispatched.compareAndSet(false, true)) {
+            return;
+        }
+
+        List<Request<K, V>> requests = new ArrayList<>(size);
+        List<K> keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Request<K, V> request = batch.requests.get(i);
+            requests.add(request);
+            keys.add(request.key);
+        }
+
+        CompletableFuture<? extends List<? extends V>> values;
+        try {
+            values = batchLoader.apply(keys);
+        } catch (Throwable t) {
+            values = CompletableFuture.failedFuture(t);
+        }
+        values.whenComplete((result, throwable) -> {
+            if (throwable == null && result == null) {
+                throwable = new IllegalStateException("batch of " + size + " keys loaded null");
+            } else if (throwable == null && result.size() != size) {
+                throwable = new IllegalStateException("batch of " + size + " keys loaded " + result.size() + " values");
+            }
+            for (int i = 0; i < size; i++) {
+                if (throwable != null) {
+                    requests.get(i).future.completeExceptionally(throwable);
+                } else {
+                    requests.get(i).future.complete(result.get(i));
+                }
+            }
+        });
+    }
+
+    private static final class Batch<K, V> {
+
+        private final AtomicReferenceArray<Request<K, V>> requests;
+        private final AtomicInteger claimed = new AtomicInteger();
+        private final AtomicInteger filled = new AtomicInteger();
+        private final AtomicBoolean dispatched = new AtomicBoolean();
+        private volatile int size = -1; // set once, by the last slot's writer or by the timer
+
+        private Batch(int maxBatchSize) {
+            this.requests = new AtomicReferenceArray<>(maxBatchSize);
+        }
+    }
+
+    private static final class Request<K, V> {
+
+        private final K key;
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        private Request(K key) {
+            this.key = key;
+        }
+    }
+}
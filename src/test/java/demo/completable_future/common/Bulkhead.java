@@ -0,0 +1,164 @@
+package demo.completable_future.common;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// caps the calls in flight to one dependency: a call starts at once if a permit is free, otherwise it waits
+// in a FIFO queue of bounded length until a finishing call hands its permit over, or fails when it has waited
+// longer than the queue timeout; no caller blocks and nothing holds a lock
+public class Bulkhead {
+
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+    private final VirtualClock clock; // null for the system clock
+
+    private final AtomicInteger permits;
+    private final AtomicInteger queued = new AtomicInteger(); // waiters not yet done, the queue's size() is O(n)
+    private final Queue<Waiter<?>> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    public Bulkhead(int maxConcurrent, int maxQueue, Duration queueTimeout) {
+        this(maxConcurrent, maxQueue, queueTimeout, null);
+    }
+
+    // queue timeouts on virtual time
+    public Bulkhead(int maxConcurrent, int maxQueue, Duration queueTimeout, VirtualClock clock) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        if (maxQueue < 0) {
+            throw new IllegalArgumentException("maxQueue must not be negative");
+        }
+        this.permits = new AtomicInteger(maxConcurrent);
+        this.maxQueue = maxQueue;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.clock = clock;
+    }
+
+    // a call that cannot start fails with FullException if the queue is full and with TimeoutException if it waits too long
+    public <T> CompletableFuture<T> call(Supplier<? extends CompletionStage<T>> call) {
+        if (waiters.isEmpty() && tryAcquire()) {
+            return start(call);
+        }
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            return CompletableFuture.failedFuture(new FullException());
+        }
+        Waiter<T> waiter = new Waiter<>(call);
+        waiter.gate.whenComplete((permit, throwable) -> {
+            queued.decrementAndGet(); // a waiter that timed out stops counting at once
+            if (throwable != null) {
+                waiter.result.completeExceptionally(throwable);
+            }
+        });
+        if (clock != null) {
+            clock.orTimeout(waiter.gate, queueTimeoutNanos, TimeUnit.NANOSECONDS);
+        } else {
+            waiter.gate.orTimeout(queueTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        waiters.offer(waiter);
+        drain();
+        return waiter.result;
+    }
+
+    public int availablePermits() {
+        return permits.get();
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    private <T> CompletableFuture<T> start(Supplier<? extends CompletionStage<T>> call) {
+        CompletableFuture<T> future;
+        try {
+            future = call.get().toCompletableFuture();
+        } catch (Throwable t) {
+            future = CompletableFuture.failedFuture(t);
+        }
+        return future.whenComplete((value, throwable) -> release());
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = permits.get();
+            if (current == 0) {
+                return false;
+            }
+        } while (!permits.compareAndSet(current, current - 1));
+        return true;
+    }
+
+    private void release() {
+        permits.incrementAndGet();
+        if (!waiters.isEmpty()) {
+            drain();
+        }
+    }
+
+    // whoever moves wip from zero hands free permits to waiters in queue order, dropping those that timed out;
+    // a release or an arrival during the drain makes it loop once more, so no permit is left idle behind a waiter
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Waiter<?> waiter;
+            while ((waiter = waiters.peek()) != null) {
+                if (waiter.result.isDone()) {
+                    waiters.poll(); // timed out, or given up by the caller while waiting
+                    waiter.gate.cancel(false);
+                    continue;
+                }
+                if (!tryAcquire()) {
+                    break;
+                }
+                waiters.poll();
+                if (waiter.gate.complete(null)) {
+                    waiter.start();
+                } else {
+                    permits.incrementAndGet(); // timed out after the permit was taken, give it back
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    // the call starts from the drain that hands the permit over, not from a dependent of the gate: a dependent
+    // is skipped if the caller has completed its result meanwhile, and the permit would never come back
+    private final class Waiter<T> {
+
+        private final Supplier<? extends CompletionStage<T>> call;
+        private final CompletableFuture<Void> gate = new CompletableFuture<>(); // completed by the permit or the queue timeout
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Waiter(Supplier<? extends CompletionStage<T>> call) {
+            this.call = call;
+        }
+
+        private void start() {
+            Bulkhead.this.start(call).whenComplete((value, throwable) -> {
+                if (throwable == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(throwable);
+                }
+            });
+        }
+    }
+
+    public static class FullException extends RuntimeException {
+
+        public FullException() {
+            super("bulkhead queue is full");
+        }
+    }
+}
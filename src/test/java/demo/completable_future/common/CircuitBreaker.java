@@ -0,0 +1,163 @@
+package demo.completable_future.common;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// closed: calls pass, outcomes are counted in a sliding window of striped counters;
+// open: calls fail immediately; half-open: one probe call decides between closed and open, and a probe
+// without an outcome after the open duration counts as failed, so a hung probe cannot block the breaker
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final int BUCKETS = 10;
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final long NO_PROBE = Long.MIN_VALUE;
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long bucketNanos;
+    private final long openNanos;
+    private final LongSupplier ticker;
+
+    private final Bucket[] window = new Bucket[BUCKETS];
+    private final AtomicInteger state = new AtomicInteger(State.CLOSED.ordinal());
+    private volatile long openedAtNanos;
+    private final AtomicLong probeStartedAtNanos = new AtomicLong(NO_PROBE); // whoever resets it decides the probe
+
+    public CircuitBreaker(double failureRateThreshold, int minimumCalls, Duration window, Duration openDuration) {
+        this(failureRateThreshold, minimumCalls, window, openDuration, System::nanoTime);
+    }
+
+    // the ticker is the source of nanoTime readings, e.g. a VirtualClock
+    public CircuitBreaker(double failureRateThreshold, int minimumCalls, Duration window, Duration openDuration, LongSupplier ticker) {
+        this.ticker = ticker;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.bucketNanos = Math.max(1, window.toNanos() / BUCKETS);
+        this.openNanos = openDuration.toNanos();
+        for (int i = 0; i < BUCKETS; i++) {
+            this.window[i] = new Bucket();
+        }
+    }
+
+    public <T> CompletableFuture<T> call(Supplier<? extends CompletableFuture<T>> call) {
+        int current = state.get();
+        long probe = NO_PROBE;
+        if (current != State.CLOSED.ordinal()) {
+            long now = ticker.getAsLong();
+            if (current == State.HALF_OPEN.ordinal()) {
+                long started = probeStartedAtNanos.get();
+                if (started != NO_PROBE && now - started >= openNanos && probeStartedAtNanos.compareAndSet(started, NO_PROBE)) {
+                    open(State.HALF_OPEN); // the probe timed out
+                }
+                return CompletableFuture.failedFuture(new OpenException());
+            }
+            if (now - openedAtNanos < openNanos || !state.compareAndSet(State.OPEN.ordinal(), State.HALF_OPEN.ordinal())) {
+                return CompletableFuture.failedFuture(new OpenException());
+            }
+            probeStartedAtNanos.set(now);
+            probe = now;
+        }
+
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (Throwable t) {
+            future = CompletableFuture.failedFuture(t);
+        }
+
+        long probeStartedAt = probe;
+        return future.whenComplete((value, throwable) -> {
+            if (probeStartedAt != NO_PROBE) {
+                onProbeComplete(probeStartedAt, throwable == null);
+            } else {
+                record(throwable == null);
+            }
+        });
+    }
+
+    public State state() {
+        return State.values()[state.get()];
+    }
+
+    private void onProbeComplete(long startedAtNanos, boolean success) {
+        if (!probeStartedAtNanos.compareAndSet(startedAtNanos, NO_PROBE)) {
+            return; // completed after it timed out
+        }
+        if (success) {
+            for (Bucket bucket : window) {
+                bucket.reset(bucket.epoch.get(), EMPTY);
+            }
+            state.set(State.CLOSED.ordinal());
+        } else {
+            open(State.HALF_OPEN);
+        }
+    }
+
+    private void record(boolean success) {
+        long epoch = ticker.getAsLong() / bucketNanos;
+        Bucket bucket = window[(int) Math.floorMod(epoch, (long) BUCKETS)];
+        long bucketEpoch = bucket.epoch.get();
+        if (bucketEpoch != epoch) {
+            bucket.reset(bucketEpoch, epoch);
+        }
+        if (success) {
+            bucket.successes.increment();
+            return;
+        }
+        bucket.failures.increment();
+
+        // the failure rate is only evaluated on failures, so the success path stays a single striped increment
+        long successes = 0;
+        long failures = 0;
+        for (Bucket b : window) {
+            if (b.epoch.get() > epoch - BUCKETS) {
+                successes += b.successes.sum();
+                failures += b.failures.sum();
+            }
+        }
+        long calls = successes + failures;
+        if (calls >= minimumCalls && failures >= failureRateThreshold * calls) {
+            open(State.CLOSED);
+        }
+    }
+
+    // the timestamp is written before the state, so a caller that sees OPEN never sees a stale one
+    private void open(State from) {
+        if (state.get() == from.ordinal()) {
+            openedAtNanos = ticker.getAsLong();
+            state.compareAndSet(from.ordinal(), State.OPEN.ordinal());
+        }
+    }
+
+    // a bucket is reused when the window slides past it: the thread that wins the CAS resets the counters,
+    // so increments that race with the reset may be lost, which only makes the failure rate approximate
+    private static final class Bucket {
+
+        private final AtomicLong epoch = new AtomicLong(EMPTY);
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        void reset(long expectedEpoch, long newEpoch) {
+            if (epoch.compareAndSet(expectedEpoch, newEpoch)) {
+                successes.reset();
+                failures.reset();
+            }
+        }
+    }
+
+    public static class OpenException extends RuntimeException {
+
+        public OpenException() {
+            super("circuit breaker is open");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package demo.completable_future.common;
+
+import java.util.concurrent.Executor;
+
+// runs each task in the context of the thread that submitted it; a task submitted without a context is passed
+// on as it is, so only the hops of a request with a context pay for the one wrapper they allocate
+public class ContextExecutor implements Executor {
+
+    private final Executor executor;
+
+    public ContextExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        AsyncContext context = AsyncContext.current();
+        executor.execute((context == AsyncContext.EMPTY) ? task : context.wrap(task));
+    }
+}
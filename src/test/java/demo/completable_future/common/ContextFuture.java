@@ -0,0 +1,88 @@
+package demo.completable_future.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+// every dependent stage is created by newIncompleteFuture and shares the context of the chain: *Async stages
+// without an executor run in it, and so do the dependents that run when a foreign thread completes the future,
+// because complete() restores it around them; stages behind a plain future (thenCompose) should be *Async
+public class ContextFuture<T> extends CompletableFuture<T> {
+
+    private final AsyncContext context;
+    private final Executor defaultExecutor;
+
+    public ContextFuture(AsyncContext context) {
+        this(context, ForkJoinPool.commonPool());
+    }
+
+    public ContextFuture(AsyncContext context, Executor executor) {
+        this(context, executor, true);
+    }
+
+    private ContextFuture(AsyncContext context, Executor executor, boolean wrap) {
+        this.context = context;
+        this.defaultExecutor = wrap ? task -> executor.execute(context.wrap(task)) : executor;
+    }
+
+    // in the context of the calling thread
+    public static <U> ContextFuture<U> supplyAsync(Supplier<U> supplier) {
+        ContextFuture<U> future = new ContextFuture<>(AsyncContext.current());
+        future.completeAsync(supplier);
+        return future;
+    }
+
+    public static <U> ContextFuture<U> supplyAsync(Supplier<U> supplier, Executor executor) {
+        ContextFuture<U> future = new ContextFuture<>(AsyncContext.current(), executor);
+        future.completeAsync(supplier);
+        return future;
+    }
+
+    public static <U> ContextFuture<U> from(CompletionStage<U> stage) {
+        ContextFuture<U> future = new ContextFuture<>(AsyncContext.current());
+        stage.whenComplete((value, throwable) -> {
+            if (throwable == null) {
+                future.complete(value);
+            } else {
+                future.completeExceptionally(throwable);
+            }
+        });
+        return future;
+    }
+
+    public AsyncContext context() {
+        return context;
+    }
+
+    @Override
+    public boolean complete(T value) {
+        AsyncContext previous = context.attach();
+        try {
+            return super.complete(value);
+        } finally {
+            context.detach(previous);
+        }
+    }
+
+    @Override
+    public boolean completeExceptionally(Throwable ex) {
+        AsyncContext previous = context.attach();
+        try {
+            return super.completeExceptionally(ex);
+        } finally {
+            context.detach(previous);
+        }
+    }
+
+    @Override
+    public Executor defaultExecutor() {
+        return defaultExecutor;
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        return new ContextFuture<>(context, defaultExecutor, false);
+    }
+}
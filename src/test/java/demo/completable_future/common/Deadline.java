@@ -0,0 +1,103 @@
+package demo.completable_future.common;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// one time budget for a whole request, set at the entry point instead of a timeout per stage: a call made
+// through it is refused once the deadline has passed and otherwise times out when the deadline does, so a
+// nested call only ever gets what is left; the DeadlineFuture it returns carries it through thenCompose/thenCombine
+public final class Deadline {
+
+    // the deadline of the call running on the current thread, so that the call can pass the remaining budget on
+    private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+    private final VirtualClock clock; // null for the system clock
+
+    private Deadline(long deadlineNanos, VirtualClock clock) {
+        this.deadlineNanos = deadlineNanos;
+        this.clock = clock;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos(), null);
+    }
+
+    // on virtual time
+    public static Deadline after(Duration budget, VirtualClock clock) {
+        return new Deadline(clock.nanoTime() + budget.toNanos(), clock);
+    }
+
+    // null outside of a call made through a deadline
+    public static Deadline current() {
+        return current.get();
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, remainingNanos()));
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    // refused with ExceededException without calling if the deadline has passed, failed with TimeoutException
+    // if the call is still running when it passes
+    public <T> DeadlineFuture<T> call(Supplier<? extends CompletionStage<T>> call) {
+        return call(Duration.ZERO, call);
+    }
+
+    // also refused if less than the required budget is left, e.g. the usual latency of the call: under overload
+    // a FIFO queue starts work just before its deadline, and such a call would only time out
+    public <T> DeadlineFuture<T> call(Duration required, Supplier<? extends CompletionStage<T>> call) {
+        DeadlineFuture<T> future = new DeadlineFuture<>(this);
+        long remaining = remainingNanos();
+        if (remaining <= 0 || remaining < required.toNanos()) {
+            future.completeExceptionally(new ExceededException());
+            return future;
+        }
+        Deadline previous = current.get();
+        current.set(this);
+        CompletionStage<T> stage;
+        try {
+            stage = call.get();
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+            return future;
+        } finally {
+            current.set(previous);
+        }
+        stage.whenComplete((value, throwable) -> {
+            if (throwable == null) {
+                future.complete(value);
+            } else {
+                future.completeExceptionally(throwable);
+            }
+        });
+        if (clock != null) {
+            clock.orTimeout(future, remaining, TimeUnit.NANOSECONDS);
+        } else {
+            future.orTimeout(remaining, TimeUnit.NANOSECONDS);
+        }
+        return future;
+    }
+
+    void check() {
+        if (isExpired()) {
+            throw new ExceededException();
+        }
+    }
+
+    private long remainingNanos() {
+        return deadlineNanos - ((clock != null) ? clock.nanoTime() : System.nanoTime());
+    }
+
+    public static class ExceededException extends RuntimeException {
+
+        public ExceededException() {
+            super("deadline exceeded");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package demo.completable_future.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// every dependent stage is created by newIncompleteFuture, so the deadline reaches the whole chain; the functions
+// of thenCompose and thenCombine run only while it has not passed, and the stage thenCompose returns times out with it
+public class DeadlineFuture<T> extends CompletableFuture<T> {
+
+    private final Deadline deadline;
+
+    public DeadlineFuture(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    public Deadline deadline() {
+        return deadline;
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        return new DeadlineFuture<>(deadline);
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenCompose(Function<? super T, ? extends CompletionStage<U>> fn) {
+        return super.thenCompose(value -> deadline.call(() -> fn.apply(value)));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenComposeAsync(Function<? super T, ? extends CompletionStage<U>> fn) {
+        return super.thenComposeAsync(value -> deadline.call(() -> fn.apply(value)));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenComposeAsync(Function<? super T, ? extends CompletionStage<U>> fn, Executor executor) {
+        return super.thenComposeAsync(value -> deadline.call(() -> fn.apply(value)), executor);
+    }
+
+    @Override
+    public <U, V> CompletableFuture<V> thenCombine(CompletionStage<? extends U> other, BiFunction<? super T, ? super U, ? extends V> fn) {
+        return super.thenCombine(other, (value, otherValue) -> {
+            deadline.check();
+            return fn.apply(value, otherValue);
+        });
+    }
+
+    @Override
+    public <U, V> CompletableFuture<V> thenCombineAsync(CompletionStage<? extends U> other, BiFunction<? super T, ? super U, ? extends V> fn) {
+        return super.thenCombineAsync(other, (value, otherValue) -> {
+            deadline.check();
+            return fn.apply(value, otherValue);
+        });
+    }
+
+    @Override
+    public <U, V> CompletableFuture<V> thenCombineAsync(CompletionStage<? extends U> other, BiFunction<? super T, ? super U, ? extends V> fn, Executor executor) {
+        return super.thenCombineAsync(other, (value, otherValue) -> {
+            deadline.check();
+            return fn.apply(value, otherValue);
+        }, executor);
+    }
+}
@@ -1,30 +1,83 @@
 package demo.completable_future.common;
 
+import org.junit.After;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 public class Demo {
 
     protected static final Logger logger = LoggerFactory.getLogger(Demo.class);
 
-    protected static void sleep(int seconds) {
+    protected static final ExecutorService executor = ExecutionMode.fromSystemProperty().newExecutor();
+
+    // sleeps and delays run on virtual time, which moves only when the test thread sleeps or advances it
+    protected final VirtualClock clock;
+
+    private final Thread testThread = Thread.currentThread();
+
+    protected Demo() {
+        this(new VirtualClock());
+    }
+
+    protected Demo(VirtualClock clock) {
+        this.clock = clock;
+    }
+
+    @After
+    public void stopClock() {
+        clock.shutdownNow(); // interrupts the threads that still sleep on it
+    }
+
+    protected void sleep(int seconds) {
+        sleep(Duration.ofSeconds(seconds));
+    }
+
+    // the test thread drives the clock, so its sleep advances it; any other thread waits for that
+    protected void sleep(Duration duration) {
+        if (Thread.currentThread() == testThread) {
+            clock.advance(duration);
+            return;
+        }
         try {
-            TimeUnit.SECONDS.sleep(seconds);
+            clock.sleep(duration);
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
         }
     }
 
-    protected static <T> T sleepAndGet(int seconds, T message) {
+    // join() for a future that tasks on the clock complete, e.g. simulated calls: advances the clock until it is done
+    protected <T> T advanceAndJoin(CompletableFuture<T> future) {
+        if (!clock.advanceUntil(future, Duration.ofHours(1))) {
+            throw new IllegalStateException("not done after an hour on the clock");
+        }
+        return future.join();
+    }
+
+    protected <T> T sleepAndGet(int seconds, T message) {
         logger.info(message + " started");
         sleep(seconds);
         logger.info(message + " finished");
         return message;
     }
 
-    protected static <T> T sleepAndGet(T message) {
+    protected <T> T sleepAndGet(T message) {
         return sleepAndGet(1, message);
     }
+
+    protected <T> CompletableFuture<T> delayAndGet(int seconds, T message) {
+        logger.info(message + " started");
+        return new LatencySimulator(LatencyDistribution.fixed(Duration.ofSeconds(seconds)), clock)
+                .supply(() -> {
+                    logger.info(message + " finished");
+                    return message;
+                });
+    }
+
+    protected <T> CompletableFuture<T> delayAndGet(T message) {
+        return delayAndGet(1, message);
+    }
 }
@@ -0,0 +1,134 @@
+package demo.completable_future.common;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// watches long-lived futures (config, warm-up gates) whose dependents stay on their stack until they complete:
+// a sample counts the dependents of every tracked future with getNumberOfDependents, which walks the stack,
+// so it costs O(dependents) on the sampling thread and nothing on the futures or their callers
+public class DependentsWatchdog {
+
+    private final int leakThreshold;
+    private final LongSupplier ticker;
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+
+    public DependentsWatchdog(int leakThreshold) {
+        this(leakThreshold, System::nanoTime);
+    }
+
+    // the ticker is the source of nanoTime readings, e.g. a VirtualClock
+    public DependentsWatchdog(int leakThreshold, LongSupplier ticker) {
+        if (leakThreshold <= 0) {
+            throw new IllegalArgumentException("leakThreshold must be positive");
+        }
+        this.leakThreshold = leakThreshold;
+        this.ticker = ticker;
+    }
+
+    // the future is held weakly and gets no dependent of its own, so tracking it changes neither its lifetime nor its count
+    public <T> CompletableFuture<T> track(String name, CompletableFuture<T> future) {
+        entries.add(new Entry(name, future, ticker.getAsLong()));
+        return future;
+    }
+
+    // samples the tracked futures that are still pending; completed and collected ones are dropped
+    public List<Sample> sample() {
+        long now = ticker.getAsLong();
+        List<Sample> samples = new ArrayList<>();
+        for (Iterator<Entry> iterator = entries.iterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            CompletableFuture<?> future = entry.future.get();
+            if (future == null || future.isDone()) {
+                iterator.remove();
+                continue;
+            }
+            int dependents = future.getNumberOfDependents();
+            int highWaterMark = entry.highWaterMark.accumulateAndGet(dependents, Math::max);
+            samples.add(new Sample(entry.name, dependents, highWaterMark, Duration.ofNanos(now - entry.trackedNanos), dependents >= leakThreshold));
+        }
+        return samples;
+    }
+
+    public List<Sample> leaks() {
+        List<Sample> leaks = new ArrayList<>();
+        for (Sample sample : sample()) {
+            if (sample.isLeak()) {
+                leaks.add(sample);
+            }
+        }
+        return leaks;
+    }
+
+    // samples every period and passes each leak to the listener, until the returned future is cancelled
+    public ScheduledFuture<?> start(ScheduledExecutorService scheduler, Duration period, Consumer<? super Sample> listener) {
+        return scheduler.scheduleAtFixedRate(() -> leaks().forEach(listener), period.toNanos(), period.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static final class Entry {
+
+        private final String name;
+        private final WeakReference<CompletableFuture<?>> future;
+        private final long trackedNanos;
+        private final AtomicInteger highWaterMark = new AtomicInteger();
+
+        private Entry(String name, CompletableFuture<?> future, long trackedNanos) {
+            this.name = name;
+            this.future = new WeakReference<>(future);
+            this.trackedNanos = trackedNanos;
+        }
+    }
+
+    public static final class Sample {
+
+        private final String name;
+        private final int dependents;
+        private final int highWaterMark;
+        private final Duration age;
+        private final boolean leak;
+
+        private Sample(String name, int dependents, int highWaterMark, Duration age, boolean leak) {
+            this.name = name;
+            this.dependents = dependents;
+            this.highWaterMark = highWaterMark;
+            this.age = age;
+            this.leak = leak;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public int dependents() {
+            return dependents;
+        }
+
+        public int highWaterMark() {
+            return highWaterMark;
+        }
+
+        public Duration age() {
+            return age;
+        }
+
+        public boolean isLeak() {
+            return leak;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": dependents=" + dependents + " highWaterMark=" + highWaterMark + " age=" + age + (leak ? " LEAK" : "");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package demo.completable_future.common;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+// select with -Ddemo.execution.mode=VIRTUAL_THREADS
+public enum ExecutionMode {
+
+    COMMON_POOL {
+        @Override
+        public ExecutorService newExecutor() {
+            return ForkJoinPool.commonPool(); // shutdown and close have no effect on the common pool
+        }
+    },
+    CACHED_THREAD_POOL {
+        @Override
+        public ExecutorService newExecutor() {
+            return Executors.newCachedThreadPool();
+        }
+    },
+    VIRTUAL_THREADS {
+        @Override
+        public ExecutorService newExecutor() {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+    };
+
+    public abstract ExecutorService newExecutor();
+
+    public static ExecutionMode fromSystemProperty() {
+        return valueOf(System.getProperty("demo.execution.mode", COMMON_POOL.name()));
+    }
+}
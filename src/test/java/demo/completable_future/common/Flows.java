@@ -0,0 +1,183 @@
+package demo.completable_future.common;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+// adapters between iterables, streams, Flow publishers and CompletableFuture
+public class Flows {
+
+    static final Flow.Subscription CANCELLED = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private Flows() {
+    }
+
+    // every subscriber gets its own iterator, so it receives all the items
+    public static <T> Flow.Publisher<T> fromIterable(Iterable<? extends T> iterable) {
+        return subscriber -> {
+            Iterator<? extends T> iterator;
+            try {
+                iterator = iterable.iterator();
+            } catch (Throwable t) {
+                subscriber.onSubscribe(CANCELLED);
+                subscriber.onError(t);
+                return;
+            }
+            subscriber.onSubscribe(new IteratorSubscription<>(iterator, subscriber, () -> {}));
+        };
+    }
+
+    // a stream can be consumed once, so only the first subscriber receives the items
+    public static <T> Flow.Publisher<T> fromStream(Stream<? extends T> stream) {
+        AtomicInteger subscribed = new AtomicInteger();
+        return subscriber -> {
+            if (subscribed.getAndIncrement() != 0) {
+                subscriber.onSubscribe(CANCELLED);
+                subscriber.onError(new IllegalStateException("a stream publisher supports only one subscriber"));
+                return;
+            }
+            subscriber.onSubscribe(new IteratorSubscription<>(stream.iterator(), subscriber, stream::close));
+        };
+    }
+
+    public static <T> CompletableFuture<List<T>> toList(Flow.Publisher<? extends T> publisher) {
+        return reduce(publisher, new ArrayList<>(), (list, item) -> {
+            list.add(item);
+            return list;
+        });
+    }
+
+    // the accumulator is called on the publisher's signalling thread, one item at a time
+    public static <T, U> CompletableFuture<U> reduce(Flow.Publisher<? extends T> publisher, U identity,
+                                                     BiFunction<U, ? super T, U> accumulator) {
+        CompletableFuture<U> result = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<T>() {
+            private Flow.Subscription subscription;
+            private U accumulated = identity;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(T item) {
+                try {
+                    accumulated = accumulator.apply(accumulated, item);
+                } catch (Throwable t) {
+                    subscription.cancel();
+                    result.completeExceptionally(t);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(accumulated);
+            }
+        });
+        return result;
+    }
+
+    // emits on the thread that requests; a request made from within onNext only adds demand to the running loop
+    private static final class IteratorSubscription<T> implements Flow.Subscription {
+
+        private final Iterator<? extends T> iterator;
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Runnable onClose;
+
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+        private boolean terminated; // accessed by the draining thread only
+
+        private IteratorSubscription(Iterator<? extends T> iterator, Flow.Subscriber<? super T> subscriber, Runnable onClose) {
+            this.iterator = iterator;
+            this.subscriber = subscriber;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("non-positive request: " + n);
+                cancelled = true;
+                drain();
+                return;
+            }
+            requested.getAndAccumulate(n, (current, added) -> (current + added < 0) ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                long emitted = 0;
+                while (!terminated) {
+                    if (cancelled) {
+                        terminate(error);
+                        break;
+                    }
+                    try {
+                        if (!iterator.hasNext()) {
+                            terminate(null);
+                            subscriber.onComplete();
+                            break;
+                        }
+                        if (emitted == requested.get()) {
+                            break;
+                        }
+                        T item = iterator.next();
+                        emitted++;
+                        subscriber.onNext(item);
+                    } catch (Throwable t) {
+                        terminate(t);
+                    }
+                }
+                if (emitted != 0) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void terminate(Throwable throwable) {
+            if (!terminated) {
+                terminated = true;
+                onClose.run();
+                if (throwable != null) {
+                    subscriber.onError(throwable);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package demo.completable_future.common;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Futures {
+
+    private Futures() {
+    }
+
+    public static <T> CompletableFuture<List<T>> allAsList(List<? extends CompletableFuture<? extends T>> futures) {
+        return allAsList(futures, false);
+    }
+
+    // completes exceptionally on the first failure instead of waiting for every sibling as allOf does
+    @SuppressWarnings("unchecked")
+    public static <T> CompletableFuture<List<T>> allAsList(List<? extends CompletableFuture<? extends T>> futures, boolean cancelOnFailure) {
+        int size = futures.size();
+        if (size == 0) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        Object[] results = new Object[size];
+        AtomicInteger remaining = new AtomicInteger(size);
+        CompletableFuture<List<T>> result = new CompletableFuture<>();
+
+        int index = 0;
+        for (CompletableFuture<? extends T> future : futures) {
+            int i = index++;
+            future.whenComplete((value, throwable) -> {
+                if (throwable != null) {
+                    if (result.completeExceptionally(throwable) && cancelOnFailure) {
+                        futures.forEach(sibling -> sibling.cancel(false));
+                    }
+                } else {
+                    results[i] = value; // published to the last completer by the decrement below
+                    if (remaining.decrementAndGet() == 0) {
+                        result.complete((List<T>) Arrays.asList(results));
+                    }
+                }
+            });
+        }
+        return result;
+    }
+}
@@ -0,0 +1,159 @@
+package demo.completable_future.common;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// sends a backup request only if the primary one has not completed within the hedge delay
+public class Hedging {
+
+    private static final int SAMPLES = 1024;
+    private static final int RECALCULATE_EVERY = 256;
+
+    private final double percentile;
+    private final VirtualClock clock; // null for the system clock
+    private final AtomicLongArray latencies = new AtomicLongArray(SAMPLES);
+    private final AtomicLong samples = new AtomicLong();
+    private volatile long delayNanos;
+
+    private final LongAdder hedgesFired = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+
+    private Hedging(Duration delay, double percentile, VirtualClock clock) {
+        this.delayNanos = delay.toNanos();
+        this.percentile = percentile;
+        this.clock = clock;
+    }
+
+    public static Hedging withFixedDelay(Duration delay) {
+        return new Hedging(delay, Double.NaN, null);
+    }
+
+    // the delay follows the given percentile of recent latencies, starting from the initial delay
+    public static Hedging withPercentileDelay(double percentile, Duration initialDelay) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1)");
+        }
+        return new Hedging(initialDelay, percentile, null);
+    }
+
+    // hedge delays and latencies on virtual time
+    public Hedging clock(VirtualClock clock) {
+        return new Hedging(delay(), percentile, clock);
+    }
+
+    public <T> CompletableFuture<T> call(Supplier<? extends CompletableFuture<T>> request) {
+        Call<T> call = new Call<>();
+        call.primary = request.get();
+        call.primary.whenComplete((value, throwable) -> {
+            if (throwable == null) {
+                record(nanoTime() - call.startNanos); // the primary's own latency, whichever attempt won
+            }
+            call.onComplete(value, throwable, false);
+        });
+        if (call.result.isDone()) {
+            return call.result;
+        }
+
+        call.trigger = CompletableFuture.runAsync(() -> {
+            if (call.result.isDone()) {
+                return;
+            }
+            call.pending.incrementAndGet();
+            hedgesFired.increment();
+            CompletableFuture<T> backup = request.get();
+            call.backup = backup;
+            backup.whenComplete((value, throwable) -> call.onComplete(value, throwable, true));
+            if (call.result.isDone()) {
+                backup.cancel(false);
+            }
+        }, (clock != null)
+                ? clock.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, Runnable::run) // fires on the advancing thread
+                : CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS));
+
+        return call.result;
+    }
+
+    public long hedgesFired() {
+        return hedgesFired.sum();
+    }
+
+    public long hedgesWon() {
+        return hedgesWon.sum();
+    }
+
+    public Duration delay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    private long nanoTime() {
+        return (clock != null) ? clock.nanoTime() : System.nanoTime();
+    }
+
+    private class Call<T> {
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicInteger pending = new AtomicInteger(1);
+        final AtomicBoolean decided = new AtomicBoolean();
+        final long startNanos = nanoTime();
+
+        volatile CompletableFuture<T> primary;
+        volatile CompletableFuture<T> backup;
+        volatile CompletableFuture<Void> trigger;
+
+        // a failed attempt completes the result only when no other attempt is still pending
+        void onComplete(T value, Throwable throwable, boolean isBackup) {
+            if (throwable == null) {
+                if (decided.compareAndSet(false, true)) {
+                    if (isBackup) {
+                        hedgesWon.increment();
+                    }
+                    result.complete(value); // before the trigger is cancelled, so a trigger already running sees it
+                    cancelAttempts();
+                }
+            } else if (pending.decrementAndGet() == 0 && decided.compareAndSet(false, true)) {
+                result.completeExceptionally(throwable);
+                cancelAttempts();
+            }
+        }
+
+        // with a percentile delay a losing primary is left to complete, so that its latency is still sampled
+        void cancelAttempts() {
+            cancel(trigger);
+            if (Double.isNaN(percentile)) {
+                cancel(primary);
+            }
+            cancel(backup);
+        }
+
+        private void cancel(CompletableFuture<?> future) {
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private void record(long latencyNanos) {
+        if (Double.isNaN(percentile)) {
+            return;
+        }
+        long sample = samples.getAndIncrement();
+        latencies.set((int) (sample & (SAMPLES - 1)), latencyNanos);
+        if ((sample + 1) % RECALCULATE_EVERY == 0) {
+            int count = (int) Math.min(sample + 1, SAMPLES);
+            long[] sorted = new long[count];
+            for (int i = 0; i < count; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+            delayNanos = sorted[(int) (percentile * (count - 1))];
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package demo.completable_future.common;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// records, for every dependent stage of the apply/accept/run/combine/compose/handle/whenComplete families:
+// time to schedule (upstream completed -> task submitted), queue wait (submitted -> started) and run time;
+// the first two only exist for *Async stages
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class InstrumentedFuture<T> extends CompletableFuture<T> {
+
+    // submission time of the task running on the current thread, 0 outside of an instrumented executor
+    private static final ThreadLocal<long[]> submittedNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+    private static final VarHandle COMPLETED_NANOS;
+
+    static {
+        try {
+            COMPLETED_NANOS = MethodHandles.lookup().findVarHandle(InstrumentedFuture.class, "completedNanos", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Metrics metrics;
+    private final TimedExecutor defaultExecutor;
+
+    private volatile Stage producer; // written after super.thenX has published the future, read by dependents on any thread
+    private volatile long completedNanos; // 0 until the first complete call, which stamps it before dependents are triggered
+
+    public InstrumentedFuture(Metrics metrics) {
+        this(metrics, ForkJoinPool.commonPool());
+    }
+
+    public InstrumentedFuture(Metrics metrics, Executor executor) {
+        this(metrics, new TimedExecutor(executor, metrics.ticker));
+    }
+
+    private InstrumentedFuture(Metrics metrics, TimedExecutor defaultExecutor) {
+        this.metrics = metrics;
+        this.defaultExecutor = defaultExecutor;
+    }
+
+    public Metrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public boolean complete(T value) {
+        stampCompleted();
+        return super.complete(value);
+    }
+
+    @Override
+    public boolean completeExceptionally(Throwable ex) {
+        stampCompleted();
+        return super.completeExceptionally(ex);
+    }
+
+    // the first call stamps, so a late call cannot overwrite the time; if the first call then loses the race to
+    // complete, the winner ran concurrently with it, so the stamp is as close as a reading of the winner's
+    private void stampCompleted() {
+        if (!isDone()) {
+            COMPLETED_NANOS.compareAndSet(this, 0L, metrics.ticker.getAsLong());
+        }
+    }
+
+    @Override
+    public Executor defaultExecutor() {
+        return defaultExecutor;
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        return new InstrumentedFuture<>(metrics, defaultExecutor);
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenApply(Function<? super T, ? extends U> fn) {
+        Stage stage = new UnaryStage(this, false, fn);
+        return stage.produce(super.thenApply((Function) stage));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenApplyAsync(Function<? super T, ? extends U> fn) {
+        Stage stage = new UnaryStage(this, true, fn);
+        return stage.produce(super.thenApplyAsync((Function) stage));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenApplyAsync(Function<? super T, ? extends U> fn, Executor executor) {
+        Stage stage = new UnaryStage(this, true, fn);
+        return stage.produce(super.thenApplyAsync((Function) stage, new TimedExecutor(executor, metrics.ticker)));
+    }
+
+    @Override
+    public CompletableFuture<Void> thenAccept(Consumer<? super T> action) {
+        Stage stage = new UnaryStage(this, false, action);
+        return stage.produce(super.thenAccept((Consumer) stage));
+    }
+
+    @Override
+    public CompletableFuture<Void> thenAcceptAsync(Consumer<? super T> action) {
+        Stage stage = new UnaryStage(this, true, action);
+        return stage.produce(super.thenAcceptAsync((Consumer) stage));
+    }
+
+    @Override
+    public CompletableFuture<Void> thenAcceptAsync(Consumer<? super T> action, Executor executor) {
+        Stage stage = new UnaryStage(this, true, action);
+        return stage.produce(super.thenAcceptAsync((Consumer) stage, new TimedExecutor(executor, metrics.ticker)));
+    }
+
+    @Override
+    public CompletableFuture<Void> thenRun(Runnable action) {
+        Stage stage = new UnaryStage(this, false, action);
+        return stage.produce(super.thenRun((Runnable) stage));
+    }
+
+    @Override
+    public CompletableFuture<Void> thenRunAsync(Runnable action) {
+        Stage stage = new UnaryStage(this, true, action);
+        return stage.produce(super.thenRunAsync((Runnable) stage));
+    }
+
+    @Override
+    public CompletableFuture<Void> thenRunAsync(Runnable action, Executor executor) {
+        Stage stage = new UnaryStage(this, true, action);
+        return stage.produce(super.thenRunAsync((Runnable) stage, new TimedExecutor(executor, metrics.ticker)));
+    }
+
+    @Override
+    public <U, V> CompletableFuture<V> thenCombine(CompletionStage<? extends U> other, BiFunction<? super T, ? super U, ? extends V> fn) {
+        Stage stage = new BiFunctionStage(this, other, false, fn);
+        return stage.produce(super.thenCombine(other, (BiFunction) stage));
+    }
+
+    @Override
+    public <U, V> CompletableFuture<V> thenCombineAsync(CompletionStage<? extends U> other, BiFunction<? super T, ? super U, ? extends V> fn) {
+        Stage stage = new BiFunctionStage(this, other, true, fn);
+        return stage.produce(super.thenCombineAsync(other, (BiFunction) stage));
+    }
+
+    @Override
+    public <U, V> CompletableFuture<V> thenCombineAsync(CompletionStage<? extends U> other, BiFunction<? super T, ? super U, ? extends V> fn, Executor executor) {
+        Stage stage = new BiFunctionStage(this, other, true, fn);
+        return stage.produce(super.thenCombineAsync(other, (BiFunction) stage, new TimedExecutor(executor, metrics.ticker)));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenCompose(Function<? super T, ? extends CompletionStage<U>> fn) {
+        Stage stage = new ComposeStage(this, false, fn);
+        return stage.produce(super.thenCompose((Function) stage));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenComposeAsync(Function<? super T, ? extends CompletionStage<U>> fn) {
+        Stage stage = new ComposeStage(this, true, fn);
+        return stage.produce(super.thenComposeAsync((Function) stage));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenComposeAsync(Function<? super T, ? extends CompletionStage<U>> fn, Executor executor) {
+        Stage stage = new ComposeStage(this, true, fn);
+        return stage.produce(super.thenComposeAsync((Function) stage, new TimedExecutor(executor, metrics.ticker)));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> handle(BiFunction<? super T, Throwable, ? extends U> fn) {
+        Stage stage = new BiFunctionStage(this, null, false, fn);
+        return stage.produce(super.handle((BiFunction) stage));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> handleAsync(BiFunction<? super T, Throwable, ? extends U> fn) {
+        Stage stage = new BiFunctionStage(this, null, true, fn);
+        return stage.produce(super.handleAsync((BiFunction) stage));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> handleAsync(BiFunction<? super T, Throwable, ? extends U> fn, Executor executor) {
+        Stage stage = new BiFunctionStage(this, null, true, fn);
+        return stage.produce(super.handleAsync((BiFunction) stage, new TimedExecutor(executor, metrics.ticker)));
+    }
+
+    @Override
+    public CompletableFuture<T> whenComplete(BiConsumer<? super T, ? super Throwable> action) {
+        Stage stage = new UnaryStage(this, false, action);
+        return stage.produce(super.whenComplete((BiConsumer) stage));
+    }
+
+    @Override
+    public CompletableFuture<T> whenCompleteAsync(BiConsumer<? super T, ? super Throwable> action) {
+        Stage stage = new UnaryStage(this, true, action);
+        return stage.produce(super.whenCompleteAsync((BiConsumer) stage));
+    }
+
+    @Override
+    public CompletableFuture<T> whenCompleteAsync(BiConsumer<? super T, ? super Throwable> action, Executor executor) {
+        Stage stage = new UnaryStage(this, true, action);
+        return stage.produce(super.whenCompleteAsync((BiConsumer) stage, new TimedExecutor(executor, metrics.ticker)));
+    }
+
+    private long completedNanos() {
+        Stage stage = producer;
+        return (stage != null) ? stage.endNanos : completedNanos;
+    }
+
+    // for stamping the end of a composed stage without instrumenting the stamp itself
+    private CompletableFuture<T> uninstrumentedWhenComplete(BiConsumer<? super T, ? super Throwable> action) {
+        return super.whenComplete(action);
+    }
+
+    // a stage is also the wrapper of the user function, so instrumenting a stage allocates a single object
+    private abstract static class Stage {
+
+        private final InstrumentedFuture<?> upstream;
+        private final Metrics metrics;
+        private final boolean async;
+        final Object action;
+        private long endNanos; // published to dependents by the completion of the produced future
+
+        Stage(InstrumentedFuture<?> upstream, boolean async, Object action) {
+            this.upstream = upstream;
+            this.metrics = upstream.metrics;
+            this.async = async;
+            this.action = action;
+        }
+
+        <U> CompletableFuture<U> produce(CompletableFuture<U> future) {
+            ((InstrumentedFuture<U>) future).producer = this;
+            return future;
+        }
+
+        long begin() {
+            long startNanos = metrics.ticker.getAsLong();
+            if (async) {
+                long submitted = submittedNanos.get()[0];
+                if (submitted != 0) {
+                    metrics.queueWait.record(startNanos - submitted);
+                    long upstreamCompleted = upstreamCompletedNanos();
+                    if (upstreamCompleted != 0) {
+                        metrics.timeToSchedule.record(submitted - upstreamCompleted);
+                    }
+                }
+            }
+            return startNanos;
+        }
+
+        long upstreamCompletedNanos() {
+            return upstream.completedNanos();
+        }
+
+        void end(long startNanos) {
+            endNanos = recordRunTime(startNanos);
+        }
+
+        void stampEnd() {
+            endNanos = metrics.ticker.getAsLong();
+        }
+
+        long recordRunTime(long startNanos) {
+            long nanos = metrics.ticker.getAsLong();
+            metrics.runTime.record(nanos - startNanos);
+            return nanos;
+        }
+    }
+
+    private static final class UnaryStage extends Stage implements Function, Consumer, Runnable, BiConsumer {
+
+        UnaryStage(InstrumentedFuture<?> upstream, boolean async, Object action) {
+            super(upstream, async, action);
+        }
+
+        @Override
+        public Object apply(Object value) {
+            long startNanos = begin();
+            try {
+                return ((Function) action).apply(value);
+            } finally {
+                end(startNanos);
+            }
+        }
+
+        @Override
+        public void accept(Object value) {
+            long startNanos = begin();
+            try {
+                ((Consumer) action).accept(value);
+            } finally {
+                end(startNanos);
+            }
+        }
+
+        @Override
+        public void run() {
+            long startNanos = begin();
+            try {
+                ((Runnable) action).run();
+            } finally {
+                end(startNanos);
+            }
+        }
+
+        @Override
+        public void accept(Object value1, Object value2) {
+            long startNanos = begin();
+            try {
+                ((BiConsumer) action).accept(value1, value2);
+            } finally {
+                end(startNanos);
+            }
+        }
+    }
+
+    // the produced future completes with the stage the function returns, so the stage ends when that one completes;
+    // the run time is still only the function call
+    private static final class ComposeStage extends Stage implements Function {
+
+        ComposeStage(InstrumentedFuture<?> upstream, boolean async, Object action) {
+            super(upstream, async, action);
+        }
+
+        @Override
+        public Object apply(Object value) {
+            long startNanos = begin();
+            CompletionStage<?> composed;
+            try {
+                composed = (CompletionStage<?>) ((Function) action).apply(value);
+            } catch (Throwable e) {
+                end(startNanos); // the produced future fails right away
+                throw e;
+            }
+            recordRunTime(startNanos);
+            if (composed == null) {
+                stampEnd();
+                return null; // thenCompose fails with a NullPointerException, as it does uninstrumented
+            }
+            // the produced future relays the stamped stage, so the stamp happens before any dependent starts
+            BiConsumer stamp = (result, failure) -> stampEnd();
+            return (composed instanceof InstrumentedFuture<?> future)
+                    ? future.uninstrumentedWhenComplete(stamp)
+                    : composed.whenComplete(stamp);
+        }
+    }
+
+    // BiFunction cannot share a class with Function, their andThen methods clash
+    private static final class BiFunctionStage extends Stage implements BiFunction {
+
+        private final InstrumentedFuture<?> other; // null for handle stages and for combines with an uninstrumented stage
+
+        BiFunctionStage(InstrumentedFuture<?> upstream, CompletionStage<?> other, boolean async, Object action) {
+            super(upstream, async, action);
+            this.other = (other instanceof InstrumentedFuture<?> future) ? future : null;
+        }
+
+        // a combine is scheduled when the later of both stages completes; an uninstrumented other stage has no
+        // completion time, so such a combine measures from this stage only
+        @Override
+        long upstreamCompletedNanos() {
+            long upstreamCompleted = super.upstreamCompletedNanos();
+            if (other == null) {
+                return upstreamCompleted;
+            }
+            long otherCompleted = other.completedNanos();
+            return (upstreamCompleted == 0 || otherCompleted == 0) ? 0 : Math.max(upstreamCompleted, otherCompleted);
+        }
+
+        @Override
+        public Object apply(Object value1, Object value2) {
+            long startNanos = begin();
+            try {
+                return ((BiFunction) action).apply(value1, value2);
+            } finally {
+                end(startNanos);
+            }
+        }
+    }
+
+    private static final class TimedExecutor implements Executor {
+
+        private final Executor executor;
+        private final LongSupplier ticker;
+
+        TimedExecutor(Executor executor, LongSupplier ticker) {
+            this.executor = executor;
+            this.ticker = ticker;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            long submitted = ticker.getAsLong();
+            executor.execute(() -> {
+                long[] current = submittedNanos.get();
+                current[0] = submitted;
+                try {
+                    task.run();
+                } finally {
+                    current[0] = 0;
+                }
+            });
+        }
+    }
+
+    public static class Metrics {
+
+        private final LongSupplier ticker;
+        private final LogLinearHistogram timeToSchedule = new LogLinearHistogram();
+        private final LogLinearHistogram queueWait = new LogLinearHistogram();
+        private final LogLinearHistogram runTime = new LogLinearHistogram();
+
+        public Metrics() {
+            this(System::nanoTime);
+        }
+
+        // the source of nanoTime readings, e.g. a VirtualClock
+        public Metrics(LongSupplier ticker) {
+            this.ticker = ticker;
+        }
+
+        public LogLinearHistogram.Snapshot timeToSchedule() {
+            return timeToSchedule.snapshot();
+        }
+
+        public LogLinearHistogram.Snapshot queueWait() {
+            return queueWait.snapshot();
+        }
+
+        public LogLinearHistogram.Snapshot runTime() {
+            return runTime.snapshot();
+        }
+
+        @Override
+        public String toString() {
+            return "time to schedule [" + timeToSchedule() + "], queue wait [" + queueWait() + "], run time [" + runTime() + "]";
+        }
+    }
+}
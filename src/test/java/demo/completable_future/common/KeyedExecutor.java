@@ -0,0 +1,97 @@
+package demo.completable_future.common;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// runs the tasks of one key in submission order and the tasks of different keys in parallel: keys are hashed
+// onto serial stripes, each a lock-free queue that at most one pool thread drains at a time, so stages that
+// touch the same key need no lock; keys that share a stripe are also serialized
+public class KeyedExecutor<K> {
+
+    private static final int BATCH = 64; // tasks a stripe runs before it yields its pool thread to other stripes
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    public KeyedExecutor(Executor executor, int stripes) {
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("stripes must be a power of 2");
+        }
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(executor);
+        }
+        this.mask = stripes - 1;
+    }
+
+    // for the *Async(fn, executor) overloads: thenApplyAsync(fn, keyedExecutor.forKey(account))
+    public Executor forKey(K key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    public void execute(K key, Runnable task) {
+        forKey(key).execute(task);
+    }
+
+    // wip counts the queued tasks: whoever increments it from zero schedules the drain, which owns the stripe until it is back to zero
+    private static final class Stripe extends AtomicInteger implements Executor, Runnable {
+
+        private final Executor executor;
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+        private Stripe(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            queue.offer(task);
+            if (getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    queue.remove(task); // the first in the queue, since wip was zero
+                    if (decrementAndGet() != 0) {
+                        drainInline(); // tasks offered meanwhile were accepted, so they still run
+                    }
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < BATCH; i++) {
+                runNext();
+                if (decrementAndGet() == 0) {
+                    return;
+                }
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                drainInline(); // rather than leave the stripe owned by a drain that never runs
+            }
+        }
+
+        private void drainInline() {
+            do {
+                runNext();
+            } while (decrementAndGet() != 0);
+        }
+
+        private void runNext() {
+            Runnable task = queue.poll(); // not null: every task is offered before wip counts it
+            try {
+                task.run();
+            } catch (Throwable t) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, t); // the stripe goes on with the next task
+            }
+        }
+    }
+}
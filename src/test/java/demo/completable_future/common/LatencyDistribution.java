@@ -0,0 +1,37 @@
+package demo.completable_future.common;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    long nextNanos();
+
+    static LatencyDistribution fixed(Duration latency) {
+        long nanos = latency.toNanos();
+        return () -> nanos;
+    }
+
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long minNanos = min.toNanos();
+        long maxNanos = max.toNanos();
+        if (minNanos > maxNanos) {
+            throw new IllegalArgumentException("min > max");
+        }
+        return () -> ThreadLocalRandom.current().nextLong(minNanos, maxNanos + 1);
+    }
+
+    // median = e^mu, so sigma alone controls how heavy the right tail is
+    static LatencyDistribution logNormal(Duration median, double sigma) {
+        double mu = Math.log(median.toNanos());
+        return () -> (long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+    }
+
+    // most calls take the base latency, a given fraction of them takes the tail latency
+    static LatencyDistribution longTail(Duration base, Duration tail, double tailProbability) {
+        long baseNanos = base.toNanos();
+        long tailNanos = tail.toNanos();
+        return () -> ThreadLocalRandom.current().nextDouble() < tailProbability ? tailNanos : baseNanos;
+    }
+}
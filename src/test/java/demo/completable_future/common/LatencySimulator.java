@@ -0,0 +1,56 @@
+package demo.completable_future.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// simulates a remote call without blocking a thread: the future is completed later by a shared scheduler
+public class LatencySimulator {
+
+    private static final ScheduledExecutorService SCHEDULER = createScheduler();
+
+    private final LatencyDistribution distribution;
+    private final ScheduledExecutorService scheduler;
+
+    public LatencySimulator(LatencyDistribution distribution) {
+        this(distribution, SCHEDULER);
+    }
+
+    // e.g. a VirtualClock, to simulate latencies without waiting for them
+    public LatencySimulator(LatencyDistribution distribution, ScheduledExecutorService scheduler) {
+        this.distribution = distribution;
+        this.scheduler = scheduler;
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        scheduler.schedule(() -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }, distribution.nextNanos(), TimeUnit.NANOSECONDS);
+        return future;
+    }
+
+    public <T> CompletableFuture<T> supply(T value) {
+        return supply(() -> value);
+    }
+
+    public static ScheduledExecutorService scheduler() {
+        return SCHEDULER;
+    }
+
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "latency-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+}
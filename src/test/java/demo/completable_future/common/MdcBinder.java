@@ -0,0 +1,30 @@
+package demo.completable_future.common;
+
+import org.slf4j.MDC;
+
+import java.util.Objects;
+
+// mirrors the given context keys into the SLF4J MDC, so %X{key} in a logback pattern prints them: only the keys
+// whose value changes are written, and the MDC map is never copied as a whole
+public class MdcBinder implements AsyncContext.Binder {
+
+    private final String[] keys;
+
+    public MdcBinder(String... keys) {
+        this.keys = keys.clone();
+    }
+
+    @Override
+    public void bind(AsyncContext previous, AsyncContext next) {
+        for (String key : keys) {
+            String value = next.get(key);
+            if (!Objects.equals(value, previous.get(key))) {
+                if (value == null) {
+                    MDC.remove(key);
+                } else {
+                    MDC.put(key, value);
+                }
+            }
+        }
+    }
+}
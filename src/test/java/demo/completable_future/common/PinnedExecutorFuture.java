@@ -0,0 +1,57 @@
+package demo.completable_future.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+// every dependent stage is created by newIncompleteFuture, so *Async methods without an executor stay on the pinned one
+public class PinnedExecutorFuture<T> extends CompletableFuture<T> {
+
+    private final Executor executor;
+
+    public PinnedExecutorFuture(Executor executor) {
+        this.executor = executor;
+    }
+
+    public static <U> PinnedExecutorFuture<U> supplyAsync(Supplier<U> supplier, Executor executor) {
+        PinnedExecutorFuture<U> future = new PinnedExecutorFuture<>(executor);
+        future.completeAsync(supplier);
+        return future;
+    }
+
+    public static PinnedExecutorFuture<Void> runAsync(Runnable runnable, Executor executor) {
+        return supplyAsync(() -> {
+            runnable.run();
+            return null;
+        }, executor);
+    }
+
+    public static <U> PinnedExecutorFuture<U> completedFuture(U value, Executor executor) {
+        PinnedExecutorFuture<U> future = new PinnedExecutorFuture<>(executor);
+        future.complete(value);
+        return future;
+    }
+
+    public static <U> PinnedExecutorFuture<U> from(CompletionStage<U> stage, Executor executor) {
+        PinnedExecutorFuture<U> future = new PinnedExecutorFuture<>(executor);
+        stage.whenComplete((value, throwable) -> {
+            if (throwable == null) {
+                future.complete(value);
+            } else {
+                future.completeExceptionally(throwable);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public Executor defaultExecutor() {
+        return executor;
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        return new PinnedExecutorFuture<>(executor);
+    }
+}
@@ -0,0 +1,115 @@
+package demo.completable_future.common;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
+
+// a single-producer, single-consumer alternative to CompletableFuture for hot handoffs:
+// one result, one callback, no dependent stack; a value completes without allocation,
+// and a failure is passed to the callback as is, not wrapped in CompletionException
+public class Promise<T> {
+
+    private static final Object NULL = new Object();
+    private static final BiConsumer<Object, Throwable> TAKEN = (value, throwable) -> {};
+
+    private static final VarHandle RESULT;
+    private static final VarHandle CALLBACK;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            RESULT = lookup.findVarHandle(Promise.class, "result", Object.class);
+            CALLBACK = lookup.findVarHandle(Promise.class, "callback", BiConsumer.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile Object result; // null while pending, then the value, NULL or a Failure
+    private volatile BiConsumer<? super T, ? super Throwable> callback; // null, the callback, or TAKEN once it is claimed to run
+
+    public boolean complete(T value) {
+        return set((value != null) ? value : NULL);
+    }
+
+    public boolean fail(Throwable throwable) {
+        return set(new Failure(Objects.requireNonNull(throwable)));
+    }
+
+    public boolean isDone() {
+        return result != null;
+    }
+
+    // the callback runs on the completing thread, or on this thread if the promise is already done;
+    // only one callback is accepted, before or after completion
+    public void onComplete(BiConsumer<? super T, ? super Throwable> action) {
+        Objects.requireNonNull(action);
+        if (!CALLBACK.compareAndSet(this, null, action)) {
+            throw new IllegalStateException("a promise accepts only one callback");
+        }
+        // racing with set: whichever side claims the callback runs it
+        if (result != null && CALLBACK.compareAndSet(this, action, TAKEN)) {
+            run(action);
+        }
+    }
+
+    public CompletableFuture<T> toCompletableFuture() {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        onComplete((value, throwable) -> {
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                future.complete(value);
+            }
+        });
+        return future;
+    }
+
+    public static <T> Promise<T> from(CompletionStage<? extends T> stage) {
+        Promise<T> promise = new Promise<>();
+        stage.whenComplete((value, throwable) -> {
+            if (throwable != null) {
+                promise.fail((throwable instanceof CompletionException && throwable.getCause() != null) ? throwable.getCause() : throwable);
+            } else {
+                promise.complete(value);
+            }
+        });
+        return promise;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean set(Object outcome) {
+        if (!RESULT.compareAndSet(this, null, outcome)) {
+            return false;
+        }
+        // a callback that is not registered yet sees the result and runs itself
+        BiConsumer<? super T, ? super Throwable> action = callback;
+        if (action != null && action != TAKEN && CALLBACK.compareAndSet(this, action, TAKEN)) {
+            run(action);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void run(BiConsumer<? super T, ? super Throwable> action) {
+        Object outcome = result;
+        if (outcome instanceof Failure) {
+            action.accept(null, ((Failure) outcome).throwable);
+        } else {
+            action.accept(outcome == NULL ? null : (T) outcome, null);
+        }
+    }
+
+    private static final class Failure {
+
+        private final Throwable throwable;
+
+        private Failure(Throwable throwable) {
+            this.throwable = throwable;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package demo.completable_future.common;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// token bucket of `permits` tokens refilled evenly over `period`: a permit is a future that completes at once
+// if a token is left, otherwise it waits in a FIFO queue until a timer fires at the next refill, so no thread
+// parks and a waiter costs one queue node and its future
+public class RateLimiter {
+
+    private final long intervalNanos; // one token per interval
+    private final long burstNanos; // the bucket holds burstNanos / intervalNanos tokens
+    private final LongSupplier ticker;
+    private final VirtualClock clock; // null for the system clock
+    private final Executor executor; // null on virtual time
+
+    // the bucket as the theoretical arrival time of the next token (GCRA): it is full while this is not after now
+    private final AtomicLong arrival;
+    private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicBoolean timerPending = new AtomicBoolean();
+
+    public RateLimiter(int permits, Duration period) {
+        this(permits, period, ForkJoinPool.commonPool());
+    }
+
+    // waiters released by the timer are completed from the executor
+    public RateLimiter(int permits, Duration period, Executor executor) {
+        this(permits, period, executor, null);
+    }
+
+    // refills on virtual time; waiters released by the timer are completed from the clock's thread
+    public RateLimiter(int permits, Duration period, VirtualClock clock) {
+        this(permits, period, null, clock);
+    }
+
+    private RateLimiter(int permits, Duration period, Executor executor, VirtualClock clock) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+        this.intervalNanos = Math.max(1, period.toNanos() / permits);
+        this.burstNanos = intervalNanos * permits;
+        this.executor = executor;
+        this.clock = clock;
+        this.ticker = (clock != null) ? clock::nanoTime : System::nanoTime;
+        this.arrival = new AtomicLong(ticker.getAsLong());
+    }
+
+    // the returned future completes when the caller may go on: acquire().thenCompose(permit -> partnerApi.call())
+    public CompletableFuture<Void> acquire() {
+        if (takeIfNoWaiters()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.offer(waiter);
+        drain();
+        return waiter;
+    }
+
+    // takes a permit only if one is free now and nobody waits for it
+    public boolean tryAcquire() {
+        return takeIfNoWaiters();
+    }
+
+    // the fast path; a waiter enqueued between the check and the take came first, so the token is given back
+    // and handed to the head of the queue
+    private boolean takeIfNoWaiters() {
+        if (!waiters.isEmpty() || tryTake() != 0) {
+            return false;
+        }
+        if (waiters.isEmpty()) {
+            return true;
+        }
+        arrival.addAndGet(-intervalNanos);
+        drain();
+        return false;
+    }
+
+    // 0 if a token was taken, otherwise the nanos until the next one
+    private long tryTake() {
+        while (true) {
+            long now = ticker.getAsLong();
+            long current = arrival.get();
+            long next = ((current - now > 0) ? current : now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // whoever moves wip from zero hands tokens to waiters in queue order; a waiter that is not yet due leaves a timer behind
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            CompletableFuture<Void> waiter;
+            while ((waiter = waiters.peek()) != null) {
+                if (waiter.isDone()) {
+                    waiters.poll(); // cancelled while waiting
+                    continue;
+                }
+                long wait = tryTake();
+                if (wait > 0) {
+                    scheduleRefill(wait);
+                    break;
+                }
+                waiters.poll();
+                if (!waiter.complete(null)) {
+                    arrival.addAndGet(-intervalNanos); // cancelled after the token was taken, give it back
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    // at most one timer is pending; it drains again once the next token is due
+    private void scheduleRefill(long delayNanos) {
+        if (!timerPending.compareAndSet(false, true)) {
+            return;
+        }
+        Runnable refill = () -> {
+            timerPending.set(false);
+            drain();
+        };
+        if (clock != null) {
+            clock.schedule(refill, delayNanos, TimeUnit.NANOSECONDS);
+        } else {
+            CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, executor).execute(refill);
+        }
+    }
+}
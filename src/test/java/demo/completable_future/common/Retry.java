@@ -0,0 +1,118 @@
+package demo.completable_future.common;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// re-invokes a call with exceptionallyCompose; backoffs wait on delayedExecutor, so no thread sleeps between attempts
+public class Retry {
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Predicate<Throwable> retryable;
+    private final long deadlineNanos;
+    private final Executor executor;
+    private final VirtualClock clock; // null for the system clock
+
+    private Retry(int maxAttempts, long initialBackoffNanos, long maxBackoffNanos, Predicate<Throwable> retryable, long deadlineNanos, Executor executor, VirtualClock clock) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoffNanos;
+        this.maxBackoffNanos = maxBackoffNanos;
+        this.retryable = retryable;
+        this.deadlineNanos = deadlineNanos;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    public static Retry maxAttempts(int maxAttempts) {
+        return new Retry(maxAttempts, Duration.ofMillis(100).toNanos(), Duration.ofSeconds(10).toNanos(), t -> true, Long.MAX_VALUE, ForkJoinPool.commonPool(), null);
+    }
+
+    // the n-th backoff is a random value in [0, min(max, initial * 2^(n-1))] ("full jitter")
+    public Retry backoff(Duration initial, Duration max) {
+        return new Retry(maxAttempts, initial.toNanos(), max.toNanos(), retryable, deadlineNanos, executor, clock);
+    }
+
+    // the predicate receives the cause, not the CompletionException wrapping it
+    public Retry retryIf(Predicate<Throwable> retryable) {
+        return new Retry(maxAttempts, initialBackoffNanos, maxBackoffNanos, retryable, deadlineNanos, executor, clock);
+    }
+
+    // no attempt starts after the deadline, and the result fails with TimeoutException when it passes
+    public Retry deadline(Duration deadline) {
+        return new Retry(maxAttempts, initialBackoffNanos, maxBackoffNanos, retryable, deadline.toNanos(), executor, clock);
+    }
+
+    // the executor that starts each retry once its backoff has elapsed
+    public Retry executor(Executor executor) {
+        return new Retry(maxAttempts, initialBackoffNanos, maxBackoffNanos, retryable, deadlineNanos, executor, clock);
+    }
+
+    // backoffs and the deadline on virtual time
+    public Retry clock(VirtualClock clock) {
+        return new Retry(maxAttempts, initialBackoffNanos, maxBackoffNanos, retryable, deadlineNanos, executor, clock);
+    }
+
+    public <T> CompletableFuture<T> call(Supplier<? extends CompletionStage<T>> call) {
+        if (deadlineNanos == Long.MAX_VALUE) {
+            return attempt(call, 1, Long.MAX_VALUE);
+        }
+        CompletableFuture<T> result = attempt(call, 1, nanoTime() + deadlineNanos);
+        return (clock != null) ? clock.orTimeout(result, deadlineNanos, TimeUnit.NANOSECONDS) : result.orTimeout(deadlineNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private <T> CompletableFuture<T> attempt(Supplier<? extends CompletionStage<T>> call, int attempt, long deadline) {
+        return invoke(call).exceptionallyCompose(throwable -> {
+            Throwable cause = unwrap(throwable);
+            if (attempt >= maxAttempts || !retryable.test(cause)) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            long backoff = backoffNanos(attempt);
+            if (deadline != Long.MAX_VALUE && nanoTime() + backoff >= deadline) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            Executor delayed = (clock != null)
+                    ? clock.delayedExecutor(backoff, TimeUnit.NANOSECONDS, executor)
+                    : CompletableFuture.delayedExecutor(backoff, TimeUnit.NANOSECONDS, executor);
+            return CompletableFuture.runAsync(() -> {}, delayed)
+                    .thenCompose(v -> attempt(call, attempt + 1, deadline));
+        });
+    }
+
+    private long nanoTime() {
+        return (clock != null) ? clock.nanoTime() : System.nanoTime();
+    }
+
+    private long backoffNanos(int attempt) {
+        int shift = Math.min(attempt - 1, 62);
+        long exponential = (initialBackoffNanos > (maxBackoffNanos >> shift)) ? maxBackoffNanos : initialBackoffNanos << shift;
+        return ThreadLocalRandom.current().nextLong(exponential + 1);
+    }
+
+    private static <T> CompletableFuture<T> invoke(Supplier<? extends CompletionStage<T>> call) {
+        try {
+            return call.get().toCompletableFuture();
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        if ((throwable instanceof CompletionException || throwable instanceof ExecutionException) && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+}
@@ -0,0 +1,207 @@
+package demo.completable_future.common;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// owns every future forked in it: when a child fails, the join times out or the scope is closed,
+// the other children are cancelled and their running threads interrupted, and join/close return
+// only after every child body has returned
+public class TaskScope implements AutoCloseable {
+
+    private final Executor executor;
+    private final Queue<Child<?>> children = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger(); // forked children whose body has not returned yet
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Object lock = new Object();
+    private volatile boolean shutdown;
+
+    public TaskScope() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public TaskScope(Executor executor) {
+        this.executor = executor;
+    }
+
+    // after shutdown, forked children are cancelled before they start
+    public <T> CompletableFuture<T> fork(Callable<? extends T> task) {
+        Child<T> child = new Child<>(task);
+        running.incrementAndGet();
+        children.add(child);
+        if (shutdown) {
+            child.cancel(true);
+            return child;
+        }
+        try {
+            executor.execute(child);
+        } catch (RejectedExecutionException e) {
+            if (child.completeExceptionally(e)) {
+                onFailure(e);
+            }
+            child.stop();
+        }
+        return child;
+    }
+
+    // waits for all children; on the first failure the others are stopped and the failure is rethrown
+    public void join() throws InterruptedException, ExecutionException {
+        try {
+            join(null);
+        } catch (TimeoutException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // as join(), and on timeout the children are stopped and TimeoutException is thrown
+    public void join(Duration timeout) throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = (timeout != null) ? System.nanoTime() + timeout.toNanos() : 0;
+        boolean timedOut = false;
+        try {
+            synchronized (lock) {
+                while (running.get() > 0 && failure.get() == null && !timedOut) {
+                    if (timeout == null) {
+                        lock.wait();
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timedOut = true;
+                    } else {
+                        lock.wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            close();
+            throw e;
+        }
+        if (timedOut) {
+            close();
+            throw new TimeoutException("scope did not finish in " + timeout);
+        }
+        Throwable throwable = failure.get();
+        if (throwable != null) {
+            close();
+            throw new ExecutionException(throwable);
+        }
+    }
+
+    // cancels the children that are not done yet and interrupts the running ones, without waiting for them
+    public void shutdown() {
+        shutdown = true;
+        for (Child<?> child : children) {
+            child.cancel(true);
+        }
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    // shuts down, then waits until every child body has returned; an interrupt is kept for the caller to see
+    @Override
+    public void close() {
+        shutdown();
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (running.get() > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void onFailure(Throwable throwable) {
+        if (failure.compareAndSet(null, throwable)) {
+            shutdown();
+        }
+    }
+
+    private void onFinished() {
+        if (running.decrementAndGet() == 0) {
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // the state protocol is FutureTask's: a canceller interrupts only while the body is running,
+    // and the body does not return to its executor before that interrupt has landed and been cleared
+    private final class Child<T> extends CompletableFuture<T> implements Runnable {
+
+        private static final int NEW = 0;
+        private static final int RUNNING = 1;
+        private static final int INTERRUPTING = 2;
+        private static final int FINISHED = 3;
+
+        private final Callable<? extends T> task;
+        private final AtomicInteger state = new AtomicInteger(NEW);
+        private volatile Thread runner;
+
+        private Child(Callable<? extends T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            runner = Thread.currentThread();
+            if (!state.compareAndSet(NEW, RUNNING)) {
+                runner = null;
+                return; // cancelled before it started
+            }
+            try {
+                T value = task.call();
+                complete(value);
+            } catch (Throwable t) {
+                if (completeExceptionally(t)) {
+                    onFailure(t);
+                }
+            } finally {
+                if (!state.compareAndSet(RUNNING, FINISHED)) {
+                    while (state.get() == INTERRUPTING) {
+                        Thread.onSpinWait();
+                    }
+                    Thread.interrupted();
+                }
+                runner = null;
+                onFinished();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (mayInterruptIfRunning) {
+                stop();
+            }
+            return cancelled;
+        }
+
+        private void stop() {
+            if (state.compareAndSet(NEW, FINISHED)) {
+                onFinished();
+            } else if (state.compareAndSet(RUNNING, INTERRUPTING)) {
+                Thread thread = runner;
+                if (thread != null) {
+                    thread.interrupt();
+                }
+                state.set(FINISHED);
+            }
+        }
+    }
+}
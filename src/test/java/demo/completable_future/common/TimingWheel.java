@@ -0,0 +1,256 @@
+package demo.completable_future.common;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+// hashed timing wheel: scheduling and cancelling a timeout are O(1), expiry is checked once per tick
+public class TimingWheel implements AutoCloseable {
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    private final Thread worker; // null on virtual time
+    private final ScheduledFuture<?> ticker; // null on the system clock
+    private final VirtualClock clock; // null for the system clock
+    private final long startNanos;
+    private long tick; // accessed by the ticking thread only
+    private volatile boolean closed;
+
+    public TimingWheel() {
+        this(Duration.ofMillis(1), 4096);
+    }
+
+    public TimingWheel(Duration tick, int wheelSize) {
+        this(tick, wheelSize, null);
+    }
+
+    // ticks on virtual time: the clock runs each tick on the thread that advances it
+    public TimingWheel(Duration tick, int wheelSize, VirtualClock clock) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of 2");
+        }
+        this.tickNanos = tick.toNanos();
+        this.wheel = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheelSize - 1;
+        this.clock = clock;
+        this.startNanos = nanoTime();
+        if (clock != null) {
+            this.worker = null;
+            this.ticker = clock.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        } else {
+            this.ticker = null;
+            this.worker = new Thread(this::run, "timing-wheel");
+            this.worker.setDaemon(true);
+            this.worker.start();
+        }
+    }
+
+    public <T> CompletableFuture<T> orTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit) {
+        if (!future.isDone()) {
+            Timeout task = schedule(() -> future.completeExceptionally(new TimeoutException()), timeout, unit);
+            future.whenComplete((value, throwable) -> task.cancel());
+        }
+        return future;
+    }
+
+    public <T> CompletableFuture<T> completeOnTimeout(CompletableFuture<T> future, T value, long timeout, TimeUnit unit) {
+        if (!future.isDone()) {
+            Timeout task = schedule(() -> future.complete(value), timeout, unit);
+            future.whenComplete((v, throwable) -> task.cancel());
+        }
+        return future;
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (closed) {
+            throw new IllegalStateException("closed");
+        }
+        long deadline = nanoTime() + unit.toNanos(delay) - startNanos;
+        Timeout timeout = new Timeout(this, task, deadline);
+        added.add(timeout);
+        return timeout;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (clock != null) {
+            ticker.cancel(false);
+        } else {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            long tickDeadline = tickNanos * (tick + 1);
+            long sleepNanos;
+            while ((sleepNanos = startNanos + tickDeadline - nanoTime()) > 0 && !closed) {
+                LockSupport.parkNanos(this, sleepNanos);
+            }
+            tick();
+        }
+    }
+
+    private void tick() {
+        removeCancelled();
+        transferAdded(tick);
+        wheel[(int) (tick & mask)].expire();
+        tick++;
+    }
+
+    private long nanoTime() {
+        return (clock != null) ? clock.nanoTime() : System.nanoTime();
+    }
+
+    private void transferAdded(long tick) {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            long ticks = Math.max(calculated, tick); // a deadline already in the past expires on this tick
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    public static final class Timeout {
+
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Timeout.class, "state", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final TimingWheel timingWheel;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state = INIT;
+
+        // accessed by the ticking thread only
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimingWheel timingWheel, Runnable task, long deadline) {
+            this.timingWheel = timingWheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, INIT, CANCELLED)) {
+                return false;
+            }
+            timingWheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        private void expire() {
+            if (STATE.compareAndSet(this, INIT, EXPIRED)) {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, t); // the wheel goes on with the next timeout
+                }
+            }
+        }
+    }
+
+    // doubly-linked list of timeouts, accessed by the ticking thread only
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
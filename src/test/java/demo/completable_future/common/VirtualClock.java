@@ -0,0 +1,314 @@
+package demo.completable_future.common;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// deterministic virtual time: the clock stands still until a test advances it, and then fires timers and
+// wakes sleepers in deadline order; advance() runs the due tasks on the calling thread
+public class VirtualClock extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private static final long AWAIT_SLEEPERS_NANOS = TimeUnit.SECONDS.toNanos(10); // real time, only to fail a broken test
+
+    private final Object lock = new Object();
+    private final PriorityQueue<Task<?>> queue = new PriorityQueue<>(); // guarded by lock
+    private final Set<Sleeper> sleepers = new HashSet<>(); // guarded by lock
+    private long sequence; // guarded by lock
+    private volatile long nanos = TimeUnit.DAYS.toNanos(1); // like System.nanoTime, the origin is arbitrary, but 0 is often a "never" marker
+    private volatile boolean shutdown;
+
+    public long nanoTime() {
+        return nanos;
+    }
+
+    // runs every task due within the duration in deadline order, then leaves the clock at the end of it
+    public void advance(Duration duration) {
+        long target = nanos + duration.toNanos();
+        while (runNext(target)) {
+        }
+        synchronized (lock) {
+            if (nanos < target) {
+                nanos = target;
+            }
+        }
+    }
+
+    // advances deadline by deadline until the future is done, at most by the duration; for futures that the
+    // clock's own tasks complete, a future completed by another thread after a wake-up is not waited for
+    public boolean advanceUntil(Future<?> future, Duration duration) {
+        long target = nanos + duration.toNanos();
+        while (!future.isDone() && runNext(target)) {
+        }
+        if (!future.isDone()) {
+            synchronized (lock) {
+                if (nanos < target) {
+                    nanos = target;
+                }
+            }
+        }
+        return future.isDone();
+    }
+
+    // Future.get with a timeout on virtual time
+    public <T> T get(Future<T> future, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!advanceUntil(future, Duration.ofNanos(unit.toNanos(timeout)))) {
+            throw new TimeoutException();
+        }
+        return future.get();
+    }
+
+    // blocks the calling thread until another thread has advanced the clock by the duration
+    public void sleep(Duration duration) throws InterruptedException {
+        Sleeper sleeper = new Sleeper(Thread.currentThread());
+        synchronized (lock) {
+            sleeper.wakeUp = enqueue(new Task<>(Executors.callable(sleeper), nanos + duration.toNanos(), 0));
+            sleepers.add(sleeper);
+            lock.notifyAll();
+        }
+        ForkJoinPool.managedBlock(sleeper); // a sleeping pool thread lets the pool start a spare, so sleepers overlap
+    }
+
+    // a test calls this before advancing, so that threads it started have begun their sleeps by then
+    public void awaitSleepers(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + AWAIT_SLEEPERS_NANOS;
+        synchronized (lock) {
+            while (sleepers.size() < count) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException(sleepers.size() + " of " + count + " threads sleep on the clock");
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+        }
+    }
+
+    // CompletableFuture.delayedExecutor on virtual time
+    public Executor delayedExecutor(long delay, TimeUnit unit) {
+        return delayedExecutor(delay, unit, ForkJoinPool.commonPool());
+    }
+
+    public Executor delayedExecutor(long delay, TimeUnit unit, Executor executor) {
+        return task -> schedule(() -> executor.execute(task), delay, unit);
+    }
+
+    // CompletableFuture.orTimeout on virtual time
+    public <T> CompletableFuture<T> orTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit) {
+        if (!future.isDone()) {
+            ScheduledFuture<?> task = schedule(() -> future.completeExceptionally(new TimeoutException()), timeout, unit);
+            future.whenComplete((value, throwable) -> task.cancel(false));
+        }
+        return future;
+    }
+
+    // CompletableFuture.completeOnTimeout on virtual time
+    public <T> CompletableFuture<T> completeOnTimeout(CompletableFuture<T> future, T value, long timeout, TimeUnit unit) {
+        if (!future.isDone()) {
+            ScheduledFuture<?> task = schedule(() -> future.complete(value), timeout, unit);
+            future.whenComplete((v, throwable) -> task.cancel(false));
+        }
+        return future;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return enqueue(new Task<>(Executors.callable(command), nanos + unit.toNanos(delay), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return enqueue(new Task<>(callable, nanos + unit.toNanos(delay), 0));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        return enqueue(new Task<>(Executors.callable(command), nanos + unit.toNanos(initialDelay), unit.toNanos(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("delay must be positive");
+        }
+        return enqueue(new Task<>(Executors.callable(command), nanos + unit.toNanos(initialDelay), -unit.toNanos(delay)));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        synchronized (lock) {
+            List<Runnable> tasks = new ArrayList<>(queue);
+            queue.clear();
+            for (Sleeper sleeper : sleepers) {
+                sleeper.thread.interrupt(); // the clock will never move again
+            }
+            return tasks;
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return shutdown;
+    }
+
+    private <V> Task<V> enqueue(Task<V> task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("shutdown");
+        }
+        synchronized (lock) {
+            task.sequence = sequence++;
+            queue.add(task);
+        }
+        return task;
+    }
+
+    // runs the earliest task that is due by the target time, false if there is none
+    private boolean runNext(long target) {
+        Task<?> task;
+        synchronized (lock) {
+            while ((task = queue.peek()) != null && task.isCancelled()) {
+                queue.poll();
+            }
+            if (task == null || task.deadline > target) {
+                return false;
+            }
+            queue.poll();
+            if (nanos < task.deadline) {
+                nanos = task.deadline;
+            }
+        }
+        task.run();
+        return true;
+    }
+
+    // the wake-up and an interrupt race to move the state from WAITING
+    private final class Sleeper extends AtomicInteger implements Runnable, ForkJoinPool.ManagedBlocker {
+
+        private static final int WAITING = 0;
+        private static final int WOKEN = 1;
+        private static final int INTERRUPTED = 2;
+
+        private final Thread thread;
+        private Task<?> wakeUp;
+
+        private Sleeper(Thread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            LockSupport.park(VirtualClock.this);
+            if (Thread.interrupted()) {
+                if (compareAndSet(WAITING, INTERRUPTED)) {
+                    wakeUp.cancel(false);
+                    synchronized (lock) {
+                        sleepers.remove(this);
+                    }
+                    throw new InterruptedException();
+                }
+                thread.interrupt(); // woken at the same time, keep the interrupt for the caller
+            }
+            return isReleasable();
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return get() != WAITING;
+        }
+
+        @Override
+        public void run() {
+            if (compareAndSet(WAITING, WOKEN)) {
+                synchronized (lock) {
+                    sleepers.remove(this);
+                }
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    private final class Task<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        private long deadline;
+        private long sequence;
+        private final long period; // positive for a fixed rate, negative for a fixed delay
+
+        private Task(Callable<V> callable, long deadline, long period) {
+            super(callable);
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof Task<?> task) {
+                int result = Long.compare(deadline, task.deadline);
+                return (result != 0) ? result : Long.compare(sequence, task.sequence);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (runAndReset() && !shutdown) {
+                deadline = (period > 0) ? deadline + period : nanos - period;
+                enqueue(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package demo.completable_future.part0;
+
+import demo.completable_future.common.BatchLoader;
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchedExecution extends Demo {
+
+    private final LatencySimulator taxService = new LatencySimulator(LatencyDistribution.fixed(Duration.ofMillis(100)), clock);
+    private final AtomicInteger taxCalls = new AtomicInteger();
+
+    @Test
+    public void testBatchBySize() {
+        BatchLoader<Integer, Float> taxes = new BatchLoader<>(this::getTaxes, 100, Duration.ofSeconds(10), Runnable::run, clock);
+
+        logger.info("this task started");
+
+        List<CompletableFuture<Float>> requests = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            int netAmountInUsd = i;
+            requests.add(taxes.load(netAmountInUsd).thenApply(tax -> netAmountInUsd * (1 + tax))); // non-blocking
+        }
+        advanceAndJoin(CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])));
+
+        logger.info("this task finished: {} requests, {} tax calls", requests.size(), taxCalls.get());
+        assertEquals(15.0f, requests.get(10).join(), 0.0f);
+        assertEquals(100, taxCalls.get());
+    }
+
+    @Test
+    public void testBatchByDelay() {
+        BatchLoader<Integer, Float> taxes = new BatchLoader<>(this::getTaxes, 100, Duration.ofMillis(50), Runnable::run, clock);
+
+        CompletableFuture<Float> tax1 = taxes.load(8);
+        CompletableFuture<Float> tax2 = taxes.load(16);
+        CompletableFuture<Float> tax3 = taxes.load(32);
+
+        assertEquals(0.5f, advanceAndJoin(tax1), 0.0f);
+        assertEquals(0.5f, tax2.join(), 0.0f);
+        assertEquals(0.5f, tax3.join(), 0.0f);
+        assertEquals(1, taxCalls.get());
+    }
+
+    @Test
+    public void testConcurrentCallers() {
+        BatchLoader<Integer, Float> taxes = new BatchLoader<>(this::getTaxes, 64, Duration.ofMillis(1), Runnable::run, clock);
+
+        List<CompletableFuture<List<CompletableFuture<Float>>>> callers = new ArrayList<>();
+        for (int c = 0; c < 8; c++) {
+            callers.add(CompletableFuture.supplyAsync(() -> {
+                List<CompletableFuture<Float>> requests = new ArrayList<>();
+                for (int i = 0; i < 10_000; i++) {
+                    requests.add(taxes.load(i));
+                }
+                return requests;
+            }, executor));
+        }
+
+        List<CompletableFuture<Float>> requests = callers.stream()
+                .flatMap(caller -> caller.join().stream())
+                .collect(Collectors.toList());
+        advanceAndJoin(CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])));
+
+        logger.info("this task finished: {} requests, {} tax calls", requests.size(), taxCalls.get());
+        assertEquals(80_000, requests.size());
+        assertTrue(taxCalls.get() >= 80_000 / 64);
+        assertTrue(taxCalls.get() < 80_000 / 8);
+    }
+
+    @Test
+    public void testFailure() {
+        BatchLoader<Integer, Float> taxes = new BatchLoader<>(amounts -> CompletableFuture.failedFuture(new RuntimeException("exception")),
+                2, Duration.ofSeconds(10), Runnable::run, clock);
+
+        CompletableFuture<Float> tax1 = taxes.load(8);
+        CompletableFuture<Float> tax2 = taxes.load(16);
+
+        for (CompletableFuture<Float> tax : List.of(tax1, tax2)) {
+            try {
+                tax.join();
+                fail();
+            } catch (CompletionException e) {
+                assertEquals("exception", e.getCause().getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testNullValues() {
+        BatchLoader<Integer, Float> taxes = new BatchLoader<>(amounts -> CompletableFuture.completedFuture(null),
+                2, Duration.ofSeconds(10), Runnable::run, clock);
+
+        CompletableFuture<Float> tax1 = taxes.load(8);
+        CompletableFuture<Float> tax2 = taxes.load(16);
+
+        for (CompletableFuture<Float> tax : List.of(tax1, tax2)) {
+            try {
+                tax.join();
+                fail();
+            } catch (CompletionException e) {
+                assertEquals(IllegalStateException.class, e.getCause().getClass());
+            }
+        }
+    }
+
+    private CompletableFuture<List<Float>> getTaxes(List<Integer> amounts) {
+        taxCalls.incrementAndGet();
+        return taxService.supply(amounts.stream().map(amount -> 50 / 100f).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,85 @@
+package demo.completable_future.part0;
+
+import demo.completable_future.common.AsyncMap;
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BoundedConcurrencyExecution extends Demo {
+
+    private final LatencySimulator priceService = new LatencySimulator(LatencyDistribution.uniform(Duration.ofMillis(1), Duration.ofMillis(20)), clock);
+    private final LatencySimulator exchangeRateService = new LatencySimulator(LatencyDistribution.uniform(Duration.ofMillis(1), Duration.ofMillis(20)), clock);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Test
+    public void testOrdered() {
+        AtomicLong expected = new AtomicLong();
+
+        logger.info("this task started");
+        CompletableFuture<Void> future = AsyncMap.ordered(IntStream.range(0, 100_000).boxed(), 1000,
+                this::getNetAmountInUsd,
+                amount -> assertEquals(expected.getAndIncrement() * 4, amount.longValue())); // non-blocking
+        logger.info("another task started");
+
+        advanceAndJoin(future);
+        logger.info("this task finished: {} line items, at most {} in flight", expected.get(), maxInFlight.get());
+
+        assertEquals(100_000, expected.get());
+        assertTrue(maxInFlight.get() <= 1000);
+    }
+
+    @Test
+    public void testUnordered() {
+        AtomicLong count = new AtomicLong();
+        AtomicLong sum = new AtomicLong();
+
+        CompletableFuture<Void> future = AsyncMap.unordered(IntStream.range(0, 100_000).boxed(), 1000,
+                this::getNetAmountInUsd,
+                amount -> {
+                    count.incrementAndGet();
+                    sum.addAndGet(amount);
+                });
+
+        advanceAndJoin(future);
+        logger.info("this task finished: {} line items, at most {} in flight", count.get(), maxInFlight.get());
+
+        assertEquals(100_000, count.get());
+        assertEquals(4L * 99_999 * 100_000 / 2, sum.get());
+        assertTrue(maxInFlight.get() <= 1000);
+    }
+
+    @Test
+    public void testFailure() {
+        CompletableFuture<Void> future = AsyncMap.ordered(IntStream.range(0, 100_000).boxed(), 10,
+                item -> item == 100 ? CompletableFuture.failedFuture(new RuntimeException("exception")) : getNetAmountInUsd(item),
+                amount -> {});
+
+        try {
+            advanceAndJoin(future);
+            fail();
+        } catch (CompletionException e) {
+            assertEquals("exception", e.getCause().getMessage());
+        }
+    }
+
+    private CompletableFuture<Integer> getNetAmountInUsd(int item) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return priceService.supply(item)
+                .thenCombine(exchangeRateService.supply(4), (price, exchangeRate) -> price * exchangeRate)
+                .whenComplete((amount, throwable) -> inFlight.decrementAndGet());
+    }
+}
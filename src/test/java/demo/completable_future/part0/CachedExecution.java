@@ -0,0 +1,102 @@
+package demo.completable_future.part0;
+
+import demo.completable_future.common.AsyncCache;
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CachedExecution extends Demo {
+
+    private final LatencySimulator exchangeRateService = new LatencySimulator(LatencyDistribution.fixed(Duration.ofMillis(200)), clock);
+    private final AtomicInteger exchangeRateCalls = new AtomicInteger();
+
+    @Test
+    public void testSingleFlight() {
+        AsyncCache<String, Integer> cache = new AsyncCache<>(this::getExchangeRate, 100);
+
+        logger.info("this task started");
+
+        List<CompletableFuture<Integer>> requests = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            requests.add(cache.get("EUR/USD")); // non-blocking, all requests share one in-flight load
+        }
+        advanceAndJoin(CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])));
+
+        logger.info("this task finished: {} requests, {} exchange rate calls", requests.size(), exchangeRateCalls.get());
+        assertEquals(4, requests.get(0).join().intValue());
+        assertEquals(1, exchangeRateCalls.get());
+
+        assertEquals(4, cache.get("EUR/USD").join().intValue());
+        assertEquals(1, exchangeRateCalls.get());
+    }
+
+    @Test
+    public void testFailureIsNotCached() {
+        AtomicInteger attempts = new AtomicInteger();
+        AsyncCache<String, Integer> cache = new AsyncCache<>(pair -> attempts.incrementAndGet() == 1
+                ? CompletableFuture.failedFuture(new RuntimeException("exception"))
+                : getExchangeRate(pair), 100);
+
+        try {
+            cache.get("EUR/USD").join();
+            fail();
+        } catch (CompletionException e) {
+            assertEquals("exception", e.getCause().getMessage());
+        }
+
+        assertEquals(4, advanceAndJoin(cache.get("EUR/USD")).intValue());
+        assertEquals(4, cache.get("EUR/USD").join().intValue());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testEviction() {
+        AtomicInteger hotKeyCalls = new AtomicInteger();
+        AsyncCache<Integer, Integer> cache = new AsyncCache<>(key -> {
+            if (key == 0) {
+                hotKeyCalls.incrementAndGet();
+            }
+            return CompletableFuture.completedFuture(key);
+        }, 100);
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.get(0); // a recently read entry gets a second chance
+            cache.get(i);
+        }
+
+        logger.info("this task finished: {} entries", cache.size());
+        assertTrue(cache.size() <= 100);
+        assertEquals(1, hotKeyCalls.get());
+    }
+
+    @Test
+    public void testTimeToLive() {
+        AsyncCache<String, Integer> cache = new AsyncCache<>(this::getExchangeRate, 100, Duration.ofMillis(500), clock::nanoTime);
+
+        advanceAndJoin(cache.get("EUR/USD"));
+        cache.get("EUR/USD").join();
+        assertEquals(1, exchangeRateCalls.get());
+
+        sleep(1);
+
+        advanceAndJoin(cache.get("EUR/USD"));
+        assertEquals(2, exchangeRateCalls.get());
+    }
+
+    private CompletableFuture<Integer> getExchangeRate(String pair) {
+        exchangeRateCalls.incrementAndGet();
+        return exchangeRateService.supply(4);
+    }
+}
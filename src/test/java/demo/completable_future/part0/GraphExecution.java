@@ -0,0 +1,139 @@
+package demo.completable_future.part0;
+
+import demo.completable_future.common.AsyncGraph;
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GraphExecution extends Demo {
+
+    private final LatencySimulator priceService = new LatencySimulator(LatencyDistribution.fixed(Duration.ofMillis(100)), clock);
+    private final LatencySimulator exchangeRateService = new LatencySimulator(LatencyDistribution.fixed(Duration.ofMillis(300)), clock);
+    private final LatencySimulator taxService = new LatencySimulator(LatencyDistribution.fixed(Duration.ofMillis(200)), clock);
+
+    @Test
+    public void testPricingFlow() {
+        AsyncGraph graph = AsyncGraph.builder()
+                .node("price", inputs -> priceService.supply(2))
+                .node("exchangeRate", inputs -> exchangeRateService.supply(4))
+                .node("netAmount", inputs -> CompletableFuture.completedFuture(inputs.<Integer>get("price") * inputs.<Integer>get("exchangeRate")),
+                        "price", "exchangeRate")
+                .node("tax", inputs -> taxService.supply(50 / 100f), "netAmount")
+                .node("grossAmount", inputs -> CompletableFuture.completedFuture(inputs.<Integer>get("netAmount") * (1 + inputs.<Float>get("tax"))),
+                        "netAmount", "tax")
+                .ticker(clock::nanoTime)
+                .build();
+
+        logger.info("this task started");
+        CompletableFuture<AsyncGraph.Run> future = graph.run(); // non-blocking
+        logger.info("another task started");
+
+        AsyncGraph.Run run = advanceAndJoin(future);
+        logger.info("this task finished: {}", run);
+
+        assertEquals(12.0f, run.<Float>get("grossAmount"), 0.0f);
+        assertEquals(List.of("exchangeRate", "netAmount", "tax", "grossAmount"), run.criticalPath());
+        assertTrue(run.duration().toMillis() >= 500);
+        assertTrue(run.duration().toMillis() < 700); // price ran in parallel with exchangeRate
+    }
+
+    @Test
+    public void testWideGraph() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        AsyncGraph.Builder builder = AsyncGraph.builder().ticker(clock::nanoTime);
+        String[] layer = new String[10];
+        for (int level = 0; level < 3; level++) {
+            String[] previous = (level == 0) ? new String[0] : layer.clone();
+            for (int i = 0; i < 10; i++) {
+                layer[i] = "node" + level + "." + i;
+                builder.node(layer[i], inputs -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return priceService.supply(1).whenComplete((value, throwable) -> inFlight.decrementAndGet());
+                }, previous);
+            }
+        }
+
+        AsyncGraph.Run run = advanceAndJoin(builder.build().run());
+        logger.info("this task finished: {}", run);
+
+        assertEquals(10, maxInFlight.get());
+        assertEquals(3, run.criticalPath().size());
+        assertTrue(run.duration().toMillis() < 500); // three levels of 100 ms, not thirty
+    }
+
+    @Test
+    public void testLongChainOfCompletedNodes() {
+        AsyncGraph.Builder builder = AsyncGraph.builder().node("node0", inputs -> CompletableFuture.completedFuture(0));
+        for (int i = 1; i < 100_000; i++) {
+            String previous = "node" + (i - 1);
+            builder.node("node" + i, inputs -> CompletableFuture.completedFuture(inputs.<Integer>get(previous) + 1), previous);
+        }
+
+        AsyncGraph.Run run = builder.build().run().join(); // one loop, not one stack frame per node
+
+        assertEquals(99_999, run.<Integer>get("node99999").intValue());
+    }
+
+    @Test
+    public void testFailure() {
+        AtomicInteger taxCalls = new AtomicInteger();
+        AsyncGraph graph = AsyncGraph.builder()
+                .node("price", inputs -> CompletableFuture.failedFuture(new RuntimeException("exception")))
+                .node("tax", inputs -> {
+                    taxCalls.incrementAndGet();
+                    return taxService.supply(50 / 100f);
+                }, "price")
+                .build();
+
+        try {
+            graph.run().join();
+            fail();
+        } catch (CompletionException e) {
+            assertEquals("node price failed", e.getMessage());
+            assertEquals("exception", e.getCause().getMessage());
+        }
+        assertEquals(0, taxCalls.get());
+    }
+
+    @Test
+    public void testNullStage() {
+        AsyncGraph graph = AsyncGraph.builder()
+                .node("price", inputs -> null)
+                .build();
+
+        try {
+            graph.run().join();
+            fail();
+        } catch (CompletionException e) {
+            assertEquals("node price failed", e.getMessage());
+            assertTrue(e.getCause() instanceof NullPointerException);
+            assertEquals("node price returned null", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testCycle() {
+        try {
+            AsyncGraph.builder()
+                    .node("a", inputs -> CompletableFuture.completedFuture(1), "b")
+                    .node("b", inputs -> CompletableFuture.completedFuture(2), "a")
+                    .build();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("the graph has a cycle", e.getMessage());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package demo.completable_future.part0;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -17,13 +18,13 @@ public class MethodsOfCompletableFutureWorkflow extends Demo {
         CompletableFuture<String> future = new CompletableFuture<>(); // creating an incomplete future
 
         executorService.submit(() -> {
-            Thread.sleep(500);
+            sleep(Duration.ofMillis(500));
             future.complete("value"); // completing the incomplete future
             return null;
         });
 
         while (!future.isDone()) { // checking the future for completion
-            Thread.sleep(1000);
+            sleep(1);
         }
 
         String result = future.get(); // reading value of the completed future
@@ -0,0 +1,166 @@
+package demo.completable_future.part0;
+
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
+import demo.completable_future.common.RateLimiter;
+import demo.completable_future.common.VirtualClock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RateLimitedExecution extends Demo {
+
+    @Test
+    public void testBurstThenRate() {
+        RateLimiter limiter = new RateLimiter(10, Duration.ofSeconds(1), clock);
+
+        List<CompletableFuture<Void>> permits = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            permits.add(limiter.acquire());
+        }
+        assertEquals(10, countDone(permits)); // the full bucket
+
+        clock.advance(Duration.ofMillis(100));
+        assertEquals(11, countDone(permits)); // one token per 100 ms
+
+        clock.advance(Duration.ofMillis(400));
+        assertEquals(15, countDone(permits));
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testFifo() {
+        RateLimiter limiter = new RateLimiter(1, Duration.ofMillis(10), clock);
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int caller = i;
+            limiter.acquire().thenRun(() -> order.add(caller));
+        }
+        clock.advance(Duration.ofSeconds(1));
+
+        assertEquals(100, order.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, order.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testWaiterEnqueuedDuringFastPath() {
+        AtomicBoolean racing = new AtomicBoolean();
+        List<CompletableFuture<Void>> waiters = new ArrayList<>();
+        RateLimiter[] limiter = new RateLimiter[1];
+        // while the fast path takes a token, another caller finds none yet and enqueues; then the token becomes due
+        VirtualClock racingClock = new VirtualClock() {
+            @Override
+            public long nanoTime() {
+                if (!racing.compareAndSet(true, false)) {
+                    return super.nanoTime();
+                }
+                waiters.add(limiter[0].acquire());
+                return super.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1);
+            }
+        };
+        limiter[0] = new RateLimiter(1, Duration.ofSeconds(1), racingClock);
+
+        assertTrue(limiter[0].acquire().isDone());
+        racingClock.advance(Duration.ofMillis(999));
+        racing.set(true);
+        CompletableFuture<Void> late = limiter[0].acquire();
+        CompletableFuture<Void> waiter = waiters.get(0);
+
+        assertFalse(late.isDone()); // the token went back to the waiter that came first
+        racingClock.advance(Duration.ofMillis(1));
+        assertTrue(waiter.isDone());
+        assertFalse(late.isDone());
+        racingClock.advance(Duration.ofSeconds(1));
+        assertTrue(late.isDone());
+    }
+
+    @Test
+    public void testCancelledWaiterGivesWay() {
+        RateLimiter limiter = new RateLimiter(1, Duration.ofSeconds(1), clock);
+
+        assertTrue(limiter.acquire().isDone());
+        CompletableFuture<Void> cancelled = limiter.acquire();
+        CompletableFuture<Void> next = limiter.acquire();
+        cancelled.cancel(false);
+
+        clock.advance(Duration.ofSeconds(1));
+
+        assertTrue(next.isDone()); // the cancelled waiter did not take the token
+    }
+
+    @Test
+    public void testMillionWaiters() {
+        RateLimiter limiter = new RateLimiter(1000, Duration.ofMillis(1), clock);
+
+        long start = System.nanoTime();
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        List<CompletableFuture<Void>> permits = new ArrayList<>(1_000_000);
+        for (int i = 0; i < 1_000_000; i++) {
+            permits.add(limiter.acquire()); // no thread waits
+        }
+        System.gc();
+        long bytesPerWaiter = (runtime.totalMemory() - runtime.freeMemory() - usedBefore) / permits.size();
+        assertEquals(1000, countDone(permits));
+
+        clock.advance(Duration.ofSeconds(1));
+
+        assertEquals(1_000_000, countDone(permits));
+        logger.info("this task finished: 1000000 waiters, about {} bytes each, in {} ms", bytesPerWaiter, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Test
+    public void testPartnerQuota() {
+        RateLimiter limiter = new RateLimiter(5, Duration.ofSeconds(1), clock);
+        LatencySimulator partnerService = new LatencySimulator(LatencyDistribution.uniform(Duration.ofMillis(50), Duration.ofMillis(150)), clock);
+
+        logger.info("this task started");
+        Queue<Long> callTimes = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            calls.add(limiter.acquire().thenCompose(permit -> {
+                callTimes.add(clock.nanoTime());
+                return partnerService.supply("value");
+            })); // non-blocking
+        }
+        clock.advance(Duration.ofSeconds(10));
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).join();
+        logger.info("this task finished: {} calls", calls.size());
+
+        List<Long> times = new ArrayList<>(callTimes);
+        times.sort(null);
+        for (int i = 0; i < times.size(); i++) {
+            for (int j = i + 5; j < times.size(); j++) {
+                int count = j - i + 1;
+                assertTrue(times.get(j) - times.get(i) >= (count - 5) * TimeUnit.MILLISECONDS.toNanos(200)); // a burst of 5, then 1 call per 200 ms
+            }
+        }
+    }
+
+    private static int countDone(List<CompletableFuture<Void>> futures) {
+        int done = 0;
+        for (CompletableFuture<Void> future : futures) {
+            if (future.isDone()) {
+                done++;
+            }
+        }
+        return done;
+    }
+}
@@ -1,8 +1,14 @@
 package demo.completable_future.part0;
 
 import demo.completable_future.common.Demo;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -10,6 +16,9 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 public class SynchronousVsAsynchronousExecution extends Demo {
 
     @Test
@@ -34,16 +43,18 @@ public class SynchronousVsAsynchronousExecution extends Demo {
         Future<Integer> priceInEur = executorService.submit(this::getPriceInEur);
         Future<Integer> exchangeRateEurToUsd = executorService.submit(this::getExchangeRateEurToUsd);
 
+        clock.awaitSleepers(2);
         while (!priceInEur.isDone() || !exchangeRateEurToUsd.isDone()) { // non-blocking
-            Thread.sleep(100);
+            sleep(Duration.ofMillis(100));
             logger.info("another task is running");
         }
 
         int netAmountInUsd = priceInEur.get() * exchangeRateEurToUsd.get(); // actually non-blocking
         Future<Float> tax = executorService.submit(() -> getTax(netAmountInUsd));
 
+        clock.awaitSleepers(1);
         while (!tax.isDone()) { // non-blocking
-            Thread.sleep(100);
+            sleep(Duration.ofMillis(100));
             logger.info("another task is running");
         }
 
@@ -59,26 +70,58 @@ public class SynchronousVsAsynchronousExecution extends Demo {
 
     @Test
     public void testAsynchronousWithCompletableFuture() throws InterruptedException {
-        CompletableFuture<Integer> priceInEur = CompletableFuture.supplyAsync(this::getPriceInEur);
-        CompletableFuture<Integer> exchangeRateEurToUsd = CompletableFuture.supplyAsync(this::getExchangeRateEurToUsd);
+        CompletableFuture<Integer> priceInEur = CompletableFuture.supplyAsync(this::getPriceInEur, executor);
+        CompletableFuture<Integer> exchangeRateEurToUsd = CompletableFuture.supplyAsync(this::getExchangeRateEurToUsd, executor);
 
         CompletableFuture<Integer> netAmountInUsd = priceInEur
                 .thenCombine(exchangeRateEurToUsd, (price, exchangeRate) -> price * exchangeRate);
 
         logger.info("this task started");
 
-        netAmountInUsd
-                .thenCompose(amount -> CompletableFuture.supplyAsync(() -> amount * (1 + getTax(amount))))
-                .whenComplete((grossAmountInUsd, throwable) -> {
+        CompletableFuture<Float> grossAmountInUsd = netAmountInUsd
+                .thenCompose(amount -> CompletableFuture.supplyAsync(() -> amount * (1 + getTax(amount)), executor))
+                .whenComplete((amount, throwable) -> {
                     if (throwable == null) {
-                        logger.info("this task finished: {}", grossAmountInUsd);
+                        logger.info("this task finished: {}", amount);
                     } else {
                         logger.warn("this task failed: {}", throwable.getMessage());
                     }
                 }); // non-blocking
 
         logger.info("another task started");
-        Thread.sleep(10000);
+        clock.awaitSleepers(2);
+        clock.advance(Duration.ofSeconds(1));
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(12.0f, grossAmountInUsd.join(), 0.0f);
+    }
+
+    @Test
+    public void testAsynchronousWithLatencySimulator() {
+        LatencySimulator priceService = new LatencySimulator(LatencyDistribution.uniform(Duration.ofMillis(100), Duration.ofMillis(200)), clock);
+        LatencySimulator exchangeRateService = new LatencySimulator(LatencyDistribution.logNormal(Duration.ofMillis(200), 0.5), clock);
+        LatencySimulator taxService = new LatencySimulator(LatencyDistribution.longTail(Duration.ofMillis(100), Duration.ofMillis(500), 0.01), clock);
+
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        logger.info("this task started");
+
+        List<CompletableFuture<Float>> requests = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            CompletableFuture<Integer> priceInEur = priceService.supply(2);
+            CompletableFuture<Integer> exchangeRateEurToUsd = exchangeRateService.supply(4);
+
+            CompletableFuture<Float> grossAmountInUsd = priceInEur
+                    .thenCombine(exchangeRateEurToUsd, (price, exchangeRate) -> price * exchangeRate)
+                    .thenCompose(amount -> taxService.supply(50 / 100f).thenApply(tax -> amount * (1 + tax))); // non-blocking
+            requests.add(grossAmountInUsd);
+        }
+
+        advanceAndJoin(CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])));
+        int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        logger.info("this task finished: {} requests, {} threads before, {} threads after", requests.size(), threadsBefore, threadsAfter);
+        assertEquals(12.0f, requests.get(0).join(), 0.0f);
+        assertTrue(threadsAfter - threadsBefore <= 1);
     }
 
     private int getPriceInEur() {
@@ -3,6 +3,7 @@ package demo.completable_future.part1.accept;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
@@ -19,6 +20,8 @@ public class AcceptEither extends Demo {
         CompletionStage<Void> stage = stage1.acceptEither(stage2,
                 s -> logger.info("consumes the first: {}", s));
 
+        clock.awaitSleepers(2);
+        clock.advance(Duration.ofSeconds(1));
         assertNull(stage.toCompletableFuture().get());
     }
 }
@@ -3,6 +3,7 @@ package demo.completable_future.part1.accept;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
@@ -19,6 +20,8 @@ public class ThenAcceptBoth extends Demo {
         CompletionStage<Void> stage = stage1.thenAcceptBoth(stage2,
                 (s1, s2) -> logger.info("consumes both: {} {}", s1, s2));
 
+        clock.awaitSleepers(2);
+        clock.advance(Duration.ofSeconds(2));
         assertNull(stage.toCompletableFuture().get());
     }
 }
@@ -3,6 +3,7 @@ package demo.completable_future.part1.apply;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
@@ -19,6 +20,8 @@ public class ApplyToEither extends Demo {
         CompletionStage<String> stage = stage1.applyToEither(stage2,
                 s -> s.toUpperCase());
 
+        clock.awaitSleepers(2);
+        clock.advance(Duration.ofSeconds(1));
         assertEquals("PARALLEL1", stage.toCompletableFuture().get());
     }
 }
@@ -0,0 +1,96 @@
+package demo.completable_future.part1.apply;
+
+import demo.completable_future.common.AsyncLoops;
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IterateAsync extends Demo {
+
+    private final LatencySimulator pageService = new LatencySimulator(LatencyDistribution.fixed(Duration.ofMillis(10)), clock);
+
+    @Test
+    public void testRecursiveThenComposeOverflowsStack() {
+        try {
+            countTo(0, 1_000_000).join(); // every thenCompose on a completed future nests one more call
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof StackOverflowError);
+        }
+    }
+
+    @Test
+    public void testSynchronousIterations() {
+        long start = System.nanoTime();
+
+        int result = AsyncLoops.iterateAsync(0, i -> i < 10_000_000, i -> CompletableFuture.completedFuture(i + 1)).join();
+
+        logger.info("this task finished: {} iterations in {} ms", result, (System.nanoTime() - start) / 1_000_000);
+        assertEquals(10_000_000, result);
+    }
+
+    @Test
+    public void testPaging() {
+        List<Integer> items = new ArrayList<>();
+
+        logger.info("this task started");
+        CompletableFuture<Integer> future = AsyncLoops.iterateAsync(0, page -> page >= 0,
+                page -> getPage(page).thenApply(pageItems -> {
+                    items.addAll(pageItems);
+                    return pageItems.isEmpty() ? -1 : page + 1;
+                })); // non-blocking
+        logger.info("another task started");
+
+        advanceAndJoin(future);
+        logger.info("this task finished: {} items", items.size());
+        assertEquals(100, items.size());
+        assertEquals(99, items.get(99).intValue());
+    }
+
+    @Test
+    public void testWhileAsync() {
+        AtomicInteger polls = new AtomicInteger();
+
+        advanceAndJoin(AsyncLoops.whileAsync(() -> pageService.supply(() -> polls.incrementAndGet() < 20))); // poll until done
+
+        assertEquals(20, polls.get());
+    }
+
+    @Test
+    public void testFailure() {
+        try {
+            advanceAndJoin(AsyncLoops.iterateAsync(0, i -> true,
+                    i -> i == 5 ? CompletableFuture.failedFuture(new RuntimeException("exception")) : pageService.supply(i + 1)));
+            fail();
+        } catch (CompletionException e) {
+            assertEquals("exception", e.getCause().getMessage());
+        }
+    }
+
+    private CompletableFuture<Integer> countTo(int value, int limit) {
+        if (value == limit) {
+            return CompletableFuture.completedFuture(value);
+        }
+        return CompletableFuture.completedFuture(value + 1).thenCompose(next -> countTo(next, limit));
+    }
+
+    private CompletableFuture<List<Integer>> getPage(int page) {
+        List<Integer> items = new ArrayList<>();
+        for (int i = page * 10; i < page * 10 + 10 && i < 100; i++) {
+            items.add(i);
+        }
+        return pageService.supply(items);
+    }
+}
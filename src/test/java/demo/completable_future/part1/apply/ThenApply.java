@@ -3,6 +3,7 @@ package demo.completable_future.part1.apply;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
@@ -18,6 +19,8 @@ public class ThenApply extends Demo {
         CompletionStage<String> stage = stage1.thenApply(
                 s -> s.toUpperCase());
 
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
         assertEquals("SINGLE", stage.toCompletableFuture().get());
     }
 }
@@ -0,0 +1,136 @@
+package demo.completable_future.part1.apply;
+
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.KeyedExecutor;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ThenApplyAsync_PerKeyOrder extends Demo {
+
+    private static final int ACCOUNTS = 8;
+    private static final int DEPOSITS = 10_000;
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private final KeyedExecutor<Integer> keyedExecutor = new KeyedExecutor<>(threads, 64);
+
+    @After
+    public void after() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    public void testSameKeyInOrder() {
+        long[] balances = new long[ACCOUNTS]; // plain fields, no lock
+        List<List<Integer>> deposits = new ArrayList<>();
+        for (int account = 0; account < ACCOUNTS; account++) {
+            deposits.add(new ArrayList<>());
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < DEPOSITS; i++) {
+            int account = i % ACCOUNTS;
+            int amount = i;
+            futures.add(CompletableFuture.runAsync(() -> {
+                balances[account] += amount;
+                deposits.get(account).add(amount);
+            }, keyedExecutor.forKey(account)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+        for (int account = 0; account < ACCOUNTS; account++) {
+            List<Integer> applied = deposits.get(account);
+            assertEquals(DEPOSITS / ACCOUNTS, applied.size()); // no update lost
+            for (int j = 1; j < applied.size(); j++) {
+                assertTrue(applied.get(j - 1) < applied.get(j)); // in submission order
+            }
+        }
+        assertEquals((long) DEPOSITS * (DEPOSITS - 1) / 2, sum(balances));
+    }
+
+    @Test
+    public void testThenApplyAsync() {
+        StringBuilder log = new StringBuilder(); // the stages of one account run one after another
+
+        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> "account", keyedExecutor.forKey(1))
+                .thenApplyAsync(s -> log.append(s).append(" opened").toString(), keyedExecutor.forKey(1))
+                .thenApplyAsync(s -> log.append(", deposit").toString(), keyedExecutor.forKey(1))
+                .thenApplyAsync(s -> log.append(", withdrawal").toString(), keyedExecutor.forKey(1));
+
+        assertEquals("account opened, deposit, withdrawal", future.join());
+    }
+
+    @Test
+    public void testDifferentKeysInParallel() throws InterruptedException {
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch second = new CountDownLatch(1);
+
+        // each account waits for the other, which finishes only if they run at the same time
+        keyedExecutor.execute(1, () -> {
+            first.countDown();
+            await(second);
+        });
+        keyedExecutor.execute(2, () -> {
+            second.countDown();
+            await(first);
+        });
+
+        assertTrue(first.await(1, TimeUnit.SECONDS));
+        assertTrue(second.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFailureDoesNotStopKey() {
+        CompletableFuture<String> failed = CompletableFuture.supplyAsync(() -> {
+            throw new RuntimeException("exception");
+        }, keyedExecutor.forKey(1));
+        CompletableFuture<String> next = CompletableFuture.supplyAsync(() -> "value", keyedExecutor.forKey(1));
+
+        assertEquals("value", next.join());
+        assertTrue(failed.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testRejected() {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        KeyedExecutor<Integer> keyedExecutor = new KeyedExecutor<>(pool, 1);
+        pool.shutdown();
+
+        for (int i = 0; i < 2; i++) { // the first rejection does not leave the stripe owned by a drain that never runs
+            try {
+                CompletableFuture.supplyAsync(() -> "value", keyedExecutor.forKey(1));
+                fail();
+            } catch (RejectedExecutionException e) {
+                assertTrue(true);
+            }
+        }
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // shut down by after()
+        }
+    }
+}
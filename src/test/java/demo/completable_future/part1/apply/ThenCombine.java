@@ -3,6 +3,7 @@ package demo.completable_future.part1.apply;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
@@ -19,6 +20,8 @@ public class ThenCombine extends Demo {
         CompletionStage<String> stage = stage1.thenCombine(stage2,
                 (s1, s2) -> (s1 + " " + s2).toUpperCase());
 
+        clock.awaitSleepers(2);
+        clock.advance(Duration.ofSeconds(1));
         assertEquals("PARALLEL1 PARALLEL2", stage.toCompletableFuture().get());
     }
 }
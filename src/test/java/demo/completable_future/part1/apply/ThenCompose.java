@@ -3,6 +3,7 @@ package demo.completable_future.part1.apply;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
@@ -18,6 +19,10 @@ public class ThenCompose extends Demo {
         CompletionStage<String> stage = stage1.thenCompose(
                 s -> supplyAsync(() -> sleepAndGet((s + " " + "sequential2").toUpperCase())));
 
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
         assertEquals("SEQUENTIAL1 SEQUENTIAL2", stage.toCompletableFuture().get());
     }
 }
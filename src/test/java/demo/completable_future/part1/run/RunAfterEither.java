@@ -3,6 +3,7 @@ package demo.completable_future.part1.run;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
@@ -19,6 +20,8 @@ public class RunAfterEither extends Demo {
         CompletionStage<Void> stage = stage1.runAfterEither(stage2,
                 () -> logger.info("runs after the first"));
 
+        clock.awaitSleepers(2);
+        clock.advance(Duration.ofSeconds(1));
         assertNull(stage.toCompletableFuture().get());
     }
 }
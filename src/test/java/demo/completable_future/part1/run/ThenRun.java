@@ -3,6 +3,7 @@ package demo.completable_future.part1.run;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
@@ -18,6 +19,8 @@ public class ThenRun extends Demo {
         CompletionStage<Void> stage = stage1.thenRun(
                 () -> logger.info("runs after the single"));
 
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
         assertNull(stage.toCompletableFuture().get());
     }
 }
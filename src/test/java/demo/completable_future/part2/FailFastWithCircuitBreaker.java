@@ -0,0 +1,108 @@
+package demo.completable_future.part2;
+
+import demo.completable_future.common.CircuitBreaker;
+import demo.completable_future.common.Demo;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class FailFastWithCircuitBreaker extends Demo {
+
+    @Test
+    public void testOpenAfterFailures() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(0.5, 10, Duration.ofSeconds(10), Duration.ofSeconds(10));
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.call(() -> {
+                calls.incrementAndGet();
+                return CompletableFuture.failedFuture(new RuntimeException("exception"));
+            });
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+
+        CompletableFuture<String> future = circuitBreaker.call(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("value");
+        });
+
+        assertTrue(future.isCompletedExceptionally()); // failed immediately, the call was not made
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(CircuitBreaker.OpenException.class, e.getCause().getClass());
+        }
+        assertEquals(10, calls.get());
+    }
+
+    @Test
+    public void testHalfOpen() throws InterruptedException, ExecutionException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(0.5, 2, Duration.ofSeconds(10), Duration.ofSeconds(1), clock::nanoTime);
+
+        circuitBreaker.call(() -> CompletableFuture.failedFuture(new RuntimeException("exception")));
+        circuitBreaker.call(() -> CompletableFuture.failedFuture(new RuntimeException("exception")));
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+
+        sleep(1);
+
+        CompletableFuture<String> probe = new CompletableFuture<>();
+        CompletableFuture<String> future1 = circuitBreaker.call(() -> probe);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+
+        CompletableFuture<String> future2 = circuitBreaker.call(() -> CompletableFuture.completedFuture("value"));
+        assertTrue(future2.isCompletedExceptionally()); // only the probe passes
+
+        probe.complete("value");
+        assertEquals("value", future1.get());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+    }
+
+    @Test
+    public void testProbeTimeout() {
+        AtomicLong nanos = new AtomicLong();
+        CircuitBreaker circuitBreaker = new CircuitBreaker(0.5, 2, Duration.ofSeconds(10), Duration.ofSeconds(1), nanos::get);
+
+        circuitBreaker.call(() -> CompletableFuture.failedFuture(new RuntimeException("exception")));
+        circuitBreaker.call(() -> CompletableFuture.failedFuture(new RuntimeException("exception")));
+        nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        CompletableFuture<String> hungProbe = new CompletableFuture<>();
+        circuitBreaker.call(() -> hungProbe);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+
+        nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(circuitBreaker.call(() -> CompletableFuture.completedFuture("value")).isCompletedExceptionally());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state()); // the hung probe counted as failed
+
+        nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+        CompletableFuture<String> probe = new CompletableFuture<>();
+        circuitBreaker.call(() -> probe);
+        hungProbe.complete("value"); // too late to decide
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+
+        probe.complete("value");
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+    }
+
+    @Test
+    public void testStaysClosed() throws InterruptedException, ExecutionException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(0.5, 10, Duration.ofSeconds(10), Duration.ofSeconds(10));
+
+        for (int i = 0; i < 100; i++) {
+            int n = i;
+            circuitBreaker.call(() -> n % 4 == 0
+                    ? CompletableFuture.failedFuture(new RuntimeException("exception"))
+                    : CompletableFuture.completedFuture("value"));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+        assertEquals("value", advanceAndJoin(circuitBreaker.call(() -> delayAndGet(1, "value"))));
+    }
+}
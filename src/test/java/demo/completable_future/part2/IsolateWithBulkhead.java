@@ -0,0 +1,146 @@
+package demo.completable_future.part2;
+
+import demo.completable_future.common.Bulkhead;
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class IsolateWithBulkhead extends Demo {
+
+
+    @Test
+    public void testMaxConcurrent() {
+        Bulkhead bulkhead = new Bulkhead(4, 100, Duration.ofSeconds(10), clock);
+        LatencySimulator service = new LatencySimulator(LatencyDistribution.uniform(Duration.ofMillis(10), Duration.ofMillis(50)), clock);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(bulkhead.call(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return service.supply("value").whenComplete((value, throwable) -> inFlight.decrementAndGet());
+            })); // non-blocking
+        }
+        clock.advance(Duration.ofSeconds(1)); // 50 calls of at most 50 ms, 4 at a time
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+        assertEquals(4, maxInFlight.get());
+        assertEquals(4, bulkhead.availablePermits());
+        assertEquals(0, bulkhead.queued());
+    }
+
+    @Test
+    public void testQueueFull() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead(1, 2, Duration.ofSeconds(10), clock);
+
+        CompletableFuture<String> running = bulkhead.call(CompletableFuture::new); // never completes
+        bulkhead.call(() -> CompletableFuture.completedFuture("value"));
+        bulkhead.call(() -> CompletableFuture.completedFuture("value"));
+        CompletableFuture<String> rejected = bulkhead.call(() -> CompletableFuture.completedFuture("value"));
+
+        assertFalse(running.isDone());
+        assertEquals(2, bulkhead.queued());
+        assertTrue(rejected.isCompletedExceptionally()); // failed immediately, not queued
+        try {
+            rejected.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(Bulkhead.FullException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void testQueueTimeout() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead(1, 10, Duration.ofSeconds(1), clock);
+        CompletableFuture<String> slowCall = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> running = bulkhead.call(() -> slowCall);
+        CompletableFuture<String> waiting = bulkhead.call(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("value");
+        });
+
+        clock.advance(Duration.ofSeconds(1));
+
+        try {
+            waiting.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(TimeoutException.class, e.getCause().getClass());
+        }
+        assertEquals(0, bulkhead.queued());
+
+        slowCall.complete("value");
+        assertEquals("value", running.join());
+        assertEquals(0, calls.get()); // the call that timed out in the queue was never made
+        assertEquals(1, bulkhead.availablePermits());
+    }
+
+    @Test
+    public void testCallerGivesUp() {
+        Bulkhead bulkhead = new Bulkhead(1, 10, Duration.ofSeconds(10), clock);
+        CompletableFuture<String> slowCall = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        bulkhead.call(() -> slowCall);
+        CompletableFuture<String> waiting = clock.orTimeout(bulkhead.call(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("value");
+        }), 1, TimeUnit.SECONDS); // the caller's own timeout, shorter than the queue timeout
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(waiting.isCompletedExceptionally());
+
+        slowCall.complete("value");
+
+        assertEquals(0, calls.get()); // skipped, not started for nobody
+        assertEquals(1, bulkhead.availablePermits()); // and its permit was not lost
+    }
+
+    @Test
+    public void testFifo() {
+        Bulkhead bulkhead = new Bulkhead(1, 100, Duration.ofSeconds(10), clock);
+        CompletableFuture<String> slowCall = new CompletableFuture<>();
+        List<Integer> order = new ArrayList<>();
+
+        bulkhead.call(() -> slowCall);
+        for (int i = 0; i < 100; i++) {
+            int caller = i;
+            bulkhead.call(() -> {
+                order.add(caller);
+                return CompletableFuture.completedFuture("value");
+            });
+        }
+        slowCall.complete("value"); // each finishing call hands its permit to the next waiter
+
+        assertEquals(100, order.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, order.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testReleaseOnFailure() {
+        Bulkhead bulkhead = new Bulkhead(2, 10, Duration.ofSeconds(10), clock);
+
+        bulkhead.call(() -> {
+            throw new RuntimeException("exception");
+        });
+        bulkhead.call(() -> CompletableFuture.failedFuture(new RuntimeException("exception")));
+
+        assertEquals(2, bulkhead.availablePermits()); // released by whenComplete either way
+    }
+}
@@ -0,0 +1,151 @@
+package demo.completable_future.part2;
+
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
+import demo.completable_future.common.Retry;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RetryWithBackoff extends Demo {
+
+    @Test
+    public void testRetrySuccess() throws InterruptedException, ExecutionException {
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> future = Retry.maxAttempts(3)
+                .backoff(Duration.ofMillis(10), Duration.ofMillis(100))
+                .clock(clock)
+                .executor(Runnable::run) // retries start on the thread that advances the clock
+                .call(() -> attempts.incrementAndGet() < 3
+                        ? CompletableFuture.failedFuture(new RuntimeException("exception"))
+                        : CompletableFuture.completedFuture("value"));
+
+        clock.advanceUntil(future, Duration.ofMinutes(1));
+        assertEquals("value", future.get());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testRetryExhausted() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> future = Retry.maxAttempts(3)
+                .backoff(Duration.ofMillis(10), Duration.ofMillis(100))
+                .clock(clock)
+                .executor(Runnable::run)
+                .call(() -> {
+                    attempts.incrementAndGet();
+                    return CompletableFuture.failedFuture(new RuntimeException("exception"));
+                });
+
+        clock.advanceUntil(future, Duration.ofMinutes(1));
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("exception", e.getCause().getMessage());
+        }
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testNotRetryable() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> future = Retry.maxAttempts(3)
+                .clock(clock)
+                .retryIf(t -> !(t instanceof IllegalArgumentException))
+                .call(() -> {
+                    attempts.incrementAndGet();
+                    return CompletableFuture.failedFuture(new IllegalArgumentException("exception"));
+                });
+
+        clock.advanceUntil(future, Duration.ofMinutes(1));
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(IllegalArgumentException.class, e.getCause().getClass());
+        }
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testDeadline() throws InterruptedException {
+        LatencySimulator service = new LatencySimulator(LatencyDistribution.fixed(Duration.ofMillis(50)), clock);
+        List<Long> attemptNanos = new ArrayList<>(); // attempts start on the thread that advances the clock
+
+        long deadlineNanos = clock.nanoTime() + Duration.ofMillis(500).toNanos();
+        CompletableFuture<String> future = Retry.maxAttempts(100)
+                .backoff(Duration.ofMillis(100), Duration.ofMillis(100))
+                .deadline(Duration.ofMillis(500))
+                .clock(clock)
+                .executor(Runnable::run)
+                .call(() -> {
+                    attemptNanos.add(clock.nanoTime());
+                    return service.supply(() -> {
+                        throw new RuntimeException("exception");
+                    });
+                });
+        long[] doneNanos = new long[1];
+        future.whenComplete((value, throwable) -> doneNanos[0] = clock.nanoTime());
+
+        clock.advanceUntil(future, Duration.ofMinutes(1));
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            // a timeout if an attempt was in flight at the deadline, else the last failure, when the next backoff would pass it
+            assertTrue(e.getCause() instanceof TimeoutException || "exception".equals(e.getCause().getMessage()));
+        }
+
+        logger.info("{} attempts", attemptNanos.size());
+        // an attempt and a backoff take at most 150 ms, so at least 4 attempts start before the deadline
+        assertTrue(attemptNanos.size() >= 4);
+        for (long nanos : attemptNanos) {
+            assertTrue(nanos < deadlineNanos);
+        }
+        assertTrue(doneNanos[0] <= deadlineNanos);
+    }
+
+    @Test
+    public void testRetryStorm() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Retry retry = Retry.maxAttempts(5).backoff(Duration.ofMillis(10), Duration.ofMillis(200)).clock(clock).executor(Runnable::run);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture.runAsync(() -> {}, ForkJoinPool.commonPool()).join(); // starts the common pool
+        threads.resetPeakThreadCount();
+        int threadsBefore = threads.getThreadCount();
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[10_000];
+        for (int i = 0; i < futures.length; i++) {
+            AtomicInteger failures = new AtomicInteger();
+            futures[i] = retry.call(() -> {
+                attempts.incrementAndGet();
+                return failures.incrementAndGet() < 4
+                        ? CompletableFuture.failedFuture(new RuntimeException("exception"))
+                        : CompletableFuture.completedFuture("value");
+            });
+        }
+        advanceAndJoin(CompletableFuture.allOf(futures));
+
+        logger.info("{} calls, {} attempts, {} threads before, {} peak threads",
+                futures.length, attempts.get(), threadsBefore, threads.getPeakThreadCount());
+        assertEquals(40_000, attempts.get());
+        assertTrue(threads.getPeakThreadCount() - threadsBefore <= Runtime.getRuntime().availableProcessors() + 1);
+    }
+}
@@ -0,0 +1,151 @@
+package demo.completable_future.part3;
+
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.Promise;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PromiseHandoff extends Demo {
+
+    @Test
+    public void testCallbackBeforeComplete() {
+        Promise<String> promise = new Promise<>();
+        AtomicReference<String> result = new AtomicReference<>();
+
+        promise.onComplete((value, throwable) -> result.set(value));
+        assertFalse(promise.isDone());
+        assertNull(result.get());
+
+        assertTrue(promise.complete("value"));
+        assertFalse(promise.complete("another value"));
+        assertEquals("value", result.get());
+    }
+
+    @Test
+    public void testCallbackAfterComplete() {
+        Promise<String> promise = new Promise<>();
+        AtomicReference<String> result = new AtomicReference<>();
+
+        promise.complete("value");
+        promise.onComplete((value, throwable) -> result.set(value));
+
+        assertTrue(promise.isDone());
+        assertEquals("value", result.get());
+    }
+
+    @Test
+    public void testFailure() {
+        Promise<String> promise = new Promise<>();
+        AtomicReference<Throwable> result = new AtomicReference<>();
+
+        promise.onComplete((value, throwable) -> result.set(throwable));
+        promise.fail(new RuntimeException("exception"));
+
+        assertEquals("exception", result.get().getMessage()); // not wrapped in CompletionException
+    }
+
+    @Test
+    public void testOneCallback() {
+        Promise<String> promise = new Promise<>();
+        promise.onComplete((value, throwable) -> {});
+
+        try {
+            promise.onComplete((value, throwable) -> {});
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("a promise accepts only one callback", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testOneCallbackAfterComplete() {
+        Promise<String> promise = new Promise<>();
+        AtomicInteger calls = new AtomicInteger();
+        promise.complete("value");
+        promise.onComplete((value, throwable) -> calls.incrementAndGet());
+
+        try {
+            promise.onComplete((value, throwable) -> calls.incrementAndGet());
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("a promise accepts only one callback", e.getMessage());
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testOneCallbackAcrossComplete() {
+        Promise<String> promise = new Promise<>();
+        AtomicInteger calls = new AtomicInteger();
+        promise.onComplete((value, throwable) -> calls.incrementAndGet());
+        promise.complete("value");
+
+        try {
+            promise.onComplete((value, throwable) -> calls.incrementAndGet());
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("a promise accepts only one callback", e.getMessage());
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testNullFailure() {
+        Promise<String> promise = new Promise<>();
+        try {
+            promise.fail(null);
+            fail();
+        } catch (NullPointerException e) {
+            assertFalse(promise.isDone());
+        }
+    }
+
+    @Test
+    public void testConversions() throws InterruptedException, ExecutionException {
+        CompletableFuture<String> future1 = CompletableFuture.supplyAsync(() -> sleepAndGet("value"), executor);
+        Promise<String> promise = Promise.from(future1);
+        CompletableFuture<String> future2 = promise.toCompletableFuture();
+
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals("value", future2.get());
+
+        Promise<String> failed = Promise.from(CompletableFuture.supplyAsync(() -> {
+            throw new RuntimeException("exception");
+        }, executor));
+        try {
+            failed.toCompletableFuture().get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("exception", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testHandoffBetweenThreads() {
+        AtomicInteger received = new AtomicInteger();
+        for (int i = 0; i < 10_000; i++) {
+            Promise<Integer> promise = new Promise<>();
+            int value = i;
+            CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> promise.complete(value), executor);
+            promise.onComplete((v, throwable) -> {
+                if (v == value) {
+                    received.incrementAndGet();
+                }
+            });
+            producer.join();
+        }
+        assertEquals(10_000, received.get()); // exactly once, whichever side came first
+    }
+}
@@ -15,4 +15,10 @@ public class RunAsync extends Demo {
         CompletableFuture<Void> future = CompletableFuture.runAsync(() -> logger.info("action"));
         assertNull(future.get());
     }
+
+    @Test
+    public void testRunAsyncWithExecutor() throws InterruptedException, ExecutionException {
+        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> logger.info("action"), executor);
+        assertNull(future.get());
+    }
 }
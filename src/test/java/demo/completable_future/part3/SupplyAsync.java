@@ -3,6 +3,7 @@ package demo.completable_future.part3;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -13,6 +14,16 @@ public class SupplyAsync extends Demo {
     @Test
     public void testSupplyAsync() throws InterruptedException, ExecutionException {
         CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> sleepAndGet("value"));
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals("value", future.get());
+    }
+
+    @Test
+    public void testSupplyAsyncWithExecutor() throws InterruptedException, ExecutionException {
+        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> sleepAndGet("value"), executor);
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
         assertEquals("value", future.get());
     }
 }
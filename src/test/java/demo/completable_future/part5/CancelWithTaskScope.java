@@ -0,0 +1,129 @@
+package demo.completable_future.part5;
+
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.TaskScope;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CancelWithTaskScope extends Demo {
+
+    private final ExecutorService threads = Executors.newCachedThreadPool(); // every child gets a thread, even on one core
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger interrupted = new AtomicInteger();
+
+    @Test
+    public void testJoin() throws InterruptedException, ExecutionException {
+        try (TaskScope scope = new TaskScope(threads)) {
+            CompletableFuture<String> future1 = scope.fork(() -> sleepAndGet(1, "value1"));
+            CompletableFuture<String> future2 = scope.fork(() -> sleepAndGet(1, "value2"));
+
+            clock.awaitSleepers(2);
+            clock.advance(Duration.ofSeconds(1));
+            scope.join();
+
+            assertEquals("value1", future1.join());
+            assertEquals("value2", future2.join());
+        }
+    }
+
+    @Test
+    public void testFailureCancelsSiblings() throws InterruptedException {
+        long start = System.nanoTime();
+        try (TaskScope scope = new TaskScope(threads)) {
+            CompletableFuture<String> future1 = scope.fork(() -> interruptibleSleepAndGet(10, "value1"));
+            CompletableFuture<String> future2 = scope.fork(() -> interruptibleSleepAndGet(10, "value2"));
+            scope.fork(() -> {
+                sleep(1);
+                throw new RuntimeException("exception");
+            });
+
+            clock.awaitSleepers(3);
+            clock.advance(Duration.ofSeconds(1));
+            try {
+                scope.join();
+                fail();
+            } catch (ExecutionException e) {
+                assertEquals("exception", e.getCause().getMessage());
+            }
+
+            assertTrue(future1.isCancelled());
+            assertTrue(future2.isCancelled());
+        }
+
+        logger.info("this task finished: {} children interrupted", interrupted.get());
+        assertEquals(0, running.get()); // join returned only after the abandoned bodies had stopped
+        assertEquals(2, interrupted.get());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    public void testTimeout() throws InterruptedException, ExecutionException {
+        try (TaskScope scope = new TaskScope(threads)) {
+            CompletableFuture<String> future = scope.fork(() -> interruptibleSleepAndGet(10, "value"));
+            CompletableFuture<String> dependent = future.thenApply(String::toUpperCase);
+
+            clock.awaitSleepers(1);
+            try {
+                scope.join(Duration.ofMillis(10)); // on real time, while the child sleeps on the clock
+                fail();
+            } catch (TimeoutException e) {
+                assertTrue(true);
+            }
+
+            assertTrue(future.isCancelled());
+            assertTrue(dependent.isCompletedExceptionally());
+        }
+
+        assertEquals(0, running.get());
+        assertEquals(1, interrupted.get());
+    }
+
+    @Test
+    public void testClose() throws InterruptedException {
+        CompletableFuture<String> future;
+        try (TaskScope scope = new TaskScope(threads)) {
+            future = scope.fork(() -> interruptibleSleepAndGet(10, "value"));
+            clock.awaitSleepers(1);
+            sleep(1);
+        }
+
+        assertTrue(future.isCancelled());
+        assertEquals(0, running.get());
+        assertEquals(1, interrupted.get());
+    }
+
+    @After
+    public void after() {
+        threads.shutdownNow();
+    }
+
+    private String interruptibleSleepAndGet(int seconds, String message) throws InterruptedException {
+        running.incrementAndGet();
+        try {
+            logger.info(message + " started");
+            clock.sleep(Duration.ofSeconds(seconds));
+            logger.info(message + " finished");
+            return message;
+        } catch (InterruptedException e) {
+            logger.info(message + " interrupted");
+            interrupted.incrementAndGet();
+            throw e;
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+}
@@ -18,7 +18,7 @@ public class CompleteAsync extends Demo {
 
         assertFalse(future1.isDone());
 
-        CompletableFuture<String> future2 = future1.completeAsync(() -> "value");
+        CompletableFuture<String> future2 = future1.completeAsync(() -> "value", clock); // the clock runs it when the test sleeps
         sleep(1);
 
         assertTrue(future2.isDone());
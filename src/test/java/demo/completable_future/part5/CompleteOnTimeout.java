@@ -3,6 +3,7 @@ package demo.completable_future.part5;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -13,15 +14,19 @@ public class CompleteOnTimeout extends Demo {
 
     @Test
     public void testCompleteOnTimeout1() throws InterruptedException, ExecutionException {
-        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> sleepAndGet(1, "value"))
-                .completeOnTimeout("default", 2, TimeUnit.SECONDS);
+        CompletableFuture<String> future = clock.completeOnTimeout(CompletableFuture.supplyAsync(() -> sleepAndGet(1, "value")),
+                "default", 2, TimeUnit.SECONDS); // future.completeOnTimeout(...) on virtual time
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
         assertEquals("value", future.get());
     }
 
     @Test
     public void testCompleteOnTimeout2() throws InterruptedException, ExecutionException {
-        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> sleepAndGet(2, "value"))
-                .completeOnTimeout("default", 1, TimeUnit.SECONDS);
+        CompletableFuture<String> future = clock.completeOnTimeout(CompletableFuture.supplyAsync(() -> sleepAndGet(2, "value")),
+                "default", 1, TimeUnit.SECONDS); // future.completeOnTimeout(...) on virtual time
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
         assertEquals("default", future.get());
     }
 }
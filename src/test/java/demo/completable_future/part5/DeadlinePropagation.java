@@ -0,0 +1,175 @@
+package demo.completable_future.part5;
+
+import demo.completable_future.common.Bulkhead;
+import demo.completable_future.common.Deadline;
+import demo.completable_future.common.DeadlineFuture;
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
+import demo.completable_future.common.VirtualClock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class DeadlinePropagation extends Demo {
+
+    private final LatencySimulator priceService = new LatencySimulator(LatencyDistribution.fixed(Duration.ofMillis(100)), clock);
+    private final LatencySimulator taxService = new LatencySimulator(LatencyDistribution.fixed(Duration.ofMillis(200)), clock);
+
+    @Test
+    public void testRemainingBudget() {
+        Deadline deadline = Deadline.after(Duration.ofMillis(300), clock);
+        AtomicReference<Duration> budget = new AtomicReference<>();
+
+        CompletableFuture<Float> future = deadline.call(() -> priceService.supply(2f))
+                .thenCompose(price -> {
+                    budget.set(Deadline.current().remaining()); // e.g. sent downstream as its own timeout
+                    return CompletableFuture.completedFuture(price * 1.5f);
+                });
+        clock.advance(Duration.ofMillis(100));
+
+        assertEquals(3f, future.join(), 0f);
+        assertEquals(Duration.ofMillis(200), budget.get());
+    }
+
+    @Test
+    public void testNestedCallGetsRemainingBudget() throws InterruptedException {
+        Deadline deadline = Deadline.after(Duration.ofMillis(250), clock);
+
+        CompletableFuture<Float> future = deadline.call(() -> priceService.supply(2f))
+                .thenCompose(price -> taxService.supply(0.5f)); // a timeout of its own would let it run for 200 ms
+
+        clock.advance(Duration.ofMillis(249));
+        assertFalse(future.isDone());
+
+        clock.advance(Duration.ofMillis(1));
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(TimeoutException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void testExpiredWorkRefused() throws InterruptedException {
+        Deadline deadline = Deadline.after(Duration.ofMillis(100), clock);
+        AtomicInteger taxCalls = new AtomicInteger();
+
+        CompletableFuture<Float> future = deadline.call(() -> priceService.supply(2f)) // completes right at the deadline
+                .thenCompose(price -> {
+                    taxCalls.incrementAndGet();
+                    return taxService.supply(0.5f);
+                });
+        clock.advance(Duration.ofMillis(100));
+
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(Deadline.ExceededException.class, e.getCause().getClass());
+        }
+        assertEquals(0, taxCalls.get()); // the nested call was never made
+    }
+
+    @Test
+    public void testThenCombine() throws InterruptedException {
+        Deadline deadline = Deadline.after(Duration.ofMillis(300), clock);
+
+        CompletableFuture<Float> future = deadline.call(() -> priceService.supply(2f))
+                .thenCombine(deadline.call(() -> taxService.supply(0.5f)), (price, tax) -> price * (1 + tax));
+        clock.advance(Duration.ofMillis(200));
+
+        assertTrue(future instanceof DeadlineFuture); // the deadline goes on with the chain
+        assertSame(deadline, ((DeadlineFuture<Float>) future).deadline());
+        assertEquals(3f, future.join(), 0f);
+    }
+
+    @Test
+    public void testRequiredBudget() {
+        Deadline deadline = Deadline.after(Duration.ofMillis(150), clock);
+
+        CompletableFuture<Float> future = deadline.call(Duration.ofMillis(200), () -> taxService.supply(0.5f));
+
+        assertTrue(future.isCompletedExceptionally()); // 150 ms left for a 200 ms call: refused at once
+    }
+
+    @Test
+    public void testOverload() {
+        Load perStageTimeouts = generateLoad(false);
+        Load propagatedDeadline = generateLoad(true);
+
+        logger.info("per-stage timeouts:  {}", perStageTimeouts);
+        logger.info("propagated deadline: {}", propagatedDeadline);
+
+        assertTrue(propagatedDeadline.wastedCalls.get() * 10 < perStageTimeouts.wastedCalls.get());
+        assertTrue(propagatedDeadline.succeeded.get() > perStageTimeouts.succeeded.get());
+    }
+
+    // open-loop load: a request arrives every 12 ms (83/s) and is useful for 300 ms; it gets a price (50 ms) and
+    // then a tax through a bulkhead of 4 calls of 100 ms (40/s), so the tax queue grows for as long as the load lasts;
+    // a tax call is wasted if its result comes back when the request is already past its 300 ms
+    private static Load generateLoad(boolean propagateDeadline) {
+        VirtualClock clock = new VirtualClock();
+        LatencySimulator priceService = new LatencySimulator(LatencyDistribution.fixed(Duration.ofMillis(50)), clock);
+        LatencySimulator taxService = new LatencySimulator(LatencyDistribution.fixed(Duration.ofMillis(100)), clock);
+        Bulkhead taxBulkhead = new Bulkhead(4, 10_000, Duration.ofHours(1), clock);
+        Load load = new Load();
+
+        for (int i = 0; i < 400; i++) {
+            clock.schedule(() -> {
+                long uselessAfterNanos = clock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+                CompletableFuture<Float> request;
+                if (propagateDeadline) {
+                    request = Deadline.after(Duration.ofMillis(300), clock)
+                            .call(() -> priceService.supply(2f))
+                            .thenCompose(price -> {
+                                Deadline deadline = Deadline.current();
+                                return taxBulkhead.call(() -> deadline.call(Duration.ofMillis(100), () -> load.call(taxService, clock, uselessAfterNanos)))
+                                        .thenApply(tax -> price * (1 + tax));
+                            });
+                } else {
+                    request = clock.orTimeout(priceService.supply(2f), 200, TimeUnit.MILLISECONDS)
+                            .thenCompose(price -> clock.orTimeout(taxBulkhead.call(() -> load.call(taxService, clock, uselessAfterNanos)), 200, TimeUnit.MILLISECONDS)
+                                    .thenApply(tax -> price * (1 + tax)));
+                }
+                request.whenComplete((value, throwable) -> {
+                    if (throwable == null && clock.nanoTime() <= uselessAfterNanos) {
+                        load.succeeded.incrementAndGet();
+                    }
+                });
+            }, i * 12L, TimeUnit.MILLISECONDS);
+        }
+        clock.advance(Duration.ofHours(2));
+        return load;
+    }
+
+    private static final class Load {
+
+        private final AtomicInteger succeeded = new AtomicInteger(); // within 300 ms
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger wastedCalls = new AtomicInteger();
+
+        private CompletableFuture<Float> call(LatencySimulator taxService, VirtualClock clock, long uselessAfterNanos) {
+            calls.incrementAndGet();
+            return taxService.supply(0.5f).whenComplete((value, throwable) -> {
+                if (clock.nanoTime() > uselessAfterNanos) {
+                    wastedCalls.incrementAndGet();
+                }
+            });
+        }
+
+        @Override
+        public String toString() {
+            return "succeeded=" + succeeded + "/400 taxCalls=" + calls + " wasted=" + wastedCalls;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package demo.completable_future.part5;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -15,15 +16,19 @@ public class OrTimeout extends Demo {
 
     @Test
     public void getNow() throws InterruptedException, ExecutionException {
-        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> sleepAndGet(2, "value"))
-                .orTimeout(3, TimeUnit.SECONDS);
+        CompletableFuture<String> future = clock.orTimeout(CompletableFuture.supplyAsync(() -> sleepAndGet(2, "value")),
+                3, TimeUnit.SECONDS); // future.orTimeout(...) on virtual time
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(2));
         assertEquals("value", future.get());
     }
 
     @Test
     public void getNowValueIfAbsent() throws InterruptedException {
-        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> sleepAndGet(2, "value"))
-                .orTimeout(1, TimeUnit.SECONDS);
+        CompletableFuture<String> future = clock.orTimeout(CompletableFuture.supplyAsync(() -> sleepAndGet(2, "value")),
+                1, TimeUnit.SECONDS); // future.orTimeout(...) on virtual time
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
         try {
             future.get();
             fail();
@@ -0,0 +1,100 @@
+package demo.completable_future.part5;
+
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.TimingWheel;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TimingWheelTimeout extends Demo {
+
+    private final TimingWheel timingWheel = new TimingWheel(Duration.ofMillis(1), 4096, clock);
+
+    @After
+    public void close() {
+        timingWheel.close();
+    }
+
+    @Test
+    public void testOrTimeout1() throws InterruptedException, ExecutionException {
+        CompletableFuture<String> future = timingWheel.orTimeout(
+                CompletableFuture.supplyAsync(() -> sleepAndGet(1, "value")), 2, TimeUnit.SECONDS);
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals("value", future.get());
+    }
+
+    @Test
+    public void testOrTimeout2() throws InterruptedException {
+        CompletableFuture<String> future = timingWheel.orTimeout(
+                CompletableFuture.supplyAsync(() -> sleepAndGet(2, "value")), 1, TimeUnit.SECONDS);
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(2)); // the timeout expires on the first tick after 1 s, before the sleeper wakes
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(TimeoutException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void testCompleteOnTimeout1() throws InterruptedException, ExecutionException {
+        CompletableFuture<String> future = timingWheel.completeOnTimeout(
+                CompletableFuture.supplyAsync(() -> sleepAndGet(1, "value")), "default", 2, TimeUnit.SECONDS);
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals("value", future.get());
+    }
+
+    @Test
+    public void testCompleteOnTimeout2() throws InterruptedException, ExecutionException {
+        CompletableFuture<String> future = timingWheel.completeOnTimeout(
+                CompletableFuture.supplyAsync(() -> sleepAndGet(2, "value")), "default", 1, TimeUnit.SECONDS);
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(2));
+        assertEquals("default", future.get());
+    }
+
+    @Test
+    public void testCancel() {
+        AtomicBoolean ran = new AtomicBoolean();
+        TimingWheel.Timeout timeout = timingWheel.schedule(() -> ran.set(true), 1, TimeUnit.SECONDS);
+        assertTrue(timeout.cancel());
+        sleep(2);
+        assertTrue(timeout.isCancelled());
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void testThrowingTask() throws InterruptedException, ExecutionException {
+        try (TimingWheel timingWheel = new TimingWheel(Duration.ofMillis(1), 16, clock)) {
+            timingWheel.schedule(() -> {
+                throw new RuntimeException("exception");
+            }, 10, TimeUnit.MILLISECONDS);
+            CompletableFuture<String> future = timingWheel.completeOnTimeout(new CompletableFuture<>(), "default", 100, TimeUnit.MILLISECONDS);
+            clock.advance(Duration.ofSeconds(1));
+            assertEquals("default", future.get()); // the wheel survived the exception
+        }
+    }
+
+    @Test
+    public void testLongDelay() throws InterruptedException, ExecutionException {
+        try (TimingWheel timingWheel = new TimingWheel(Duration.ofMillis(1), 16, clock)) {
+            CompletableFuture<String> future = timingWheel.completeOnTimeout(new CompletableFuture<>(), "default", 100, TimeUnit.MILLISECONDS);
+            clock.advance(Duration.ofSeconds(1));
+            assertEquals("default", future.get()); // spans several rounds of the wheel
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package demo.completable_future.part5;
+
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
+import demo.completable_future.common.Retry;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VirtualTimeouts extends Demo {
+
+
+    @Test
+    public void testOrTimeout() throws InterruptedException {
+        LatencySimulator service = new LatencySimulator(LatencyDistribution.fixed(Duration.ofSeconds(2)), clock);
+        CompletableFuture<String> future = clock.orTimeout(service.supply("value"), 1, TimeUnit.SECONDS);
+
+        clock.advance(Duration.ofMillis(999));
+        assertFalse(future.isDone());
+
+        clock.advance(Duration.ofMillis(1));
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(TimeoutException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void testCompleteOnTimeout() {
+        LatencySimulator service = new LatencySimulator(LatencyDistribution.fixed(Duration.ofSeconds(1)), clock);
+        CompletableFuture<String> future = clock.completeOnTimeout(service.supply("value"), "default", 2, TimeUnit.SECONDS);
+
+        clock.advance(Duration.ofSeconds(1));
+
+        assertEquals("value", future.getNow(null));
+    }
+
+    @Test
+    public void testDelayedExecutor() {
+        List<String> order = new ArrayList<>();
+        Executor executor = clock.delayedExecutor(1, TimeUnit.SECONDS, Runnable::run);
+
+        executor.execute(() -> order.add("delayed"));
+        order.add("submitted");
+        clock.advance(Duration.ofSeconds(1));
+
+        assertEquals(List.of("submitted", "delayed"), order);
+    }
+
+    @Test
+    public void testDeadlineOrder() {
+        List<String> order = new ArrayList<>();
+        clock.schedule(() -> order.add("3 s"), 3, TimeUnit.SECONDS);
+        clock.schedule(() -> order.add("1 s"), 1, TimeUnit.SECONDS);
+        clock.schedule(() -> order.add("2 s"), 2, TimeUnit.SECONDS);
+        clock.schedule(() -> order.add("1 s again"), 1, TimeUnit.SECONDS);
+
+        clock.advance(Duration.ofSeconds(10));
+
+        assertEquals(List.of("1 s", "1 s again", "2 s", "3 s"), order); // equal deadlines fire in scheduling order
+    }
+
+    @Test
+    public void testRetryBackoffs() {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> future = Retry.maxAttempts(3)
+                .backoff(Duration.ofSeconds(10), Duration.ofSeconds(10))
+                .clock(clock)
+                .executor(Runnable::run)
+                .call(() -> attempts.incrementAndGet() < 3
+                        ? CompletableFuture.failedFuture(new RuntimeException("exception"))
+                        : CompletableFuture.completedFuture("value"));
+
+        assertEquals(1, attempts.get());
+        clock.advance(Duration.ofSeconds(20)); // the two backoffs are at most 10 seconds each
+
+        assertEquals("value", future.getNow(null));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testRepeatedPipeline() {
+        LatencySimulator priceService = new LatencySimulator(LatencyDistribution.uniform(Duration.ofMillis(100), Duration.ofMillis(200)), clock);
+        LatencySimulator taxService = new LatencySimulator(LatencyDistribution.logNormal(Duration.ofMillis(200), 0.5), clock);
+
+        long start = System.nanoTime();
+        int timedOut = 0;
+        for (int i = 0; i < 10_000; i++) {
+            CompletableFuture<Float> future = clock.orTimeout(priceService.supply(2)
+                    .thenCompose(price -> taxService.supply(50 / 100f).thenApply(tax -> price * (1 + tax))), 500, TimeUnit.MILLISECONDS);
+            clock.advance(Duration.ofSeconds(1));
+
+            assertTrue(future.isDone());
+            if (future.isCompletedExceptionally()) {
+                timedOut++;
+            }
+        }
+
+        logger.info("this task finished: 10000 runs, {} timed out, in {} ms", timedOut, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -3,6 +3,7 @@ package demo.completable_future.part6;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -13,6 +14,8 @@ public class Get extends Demo {
     @Test
     public void testGet() throws InterruptedException, ExecutionException {
         CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> sleepAndGet(2, "value"));
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(2));
         assertEquals("value", future.get());
     }
 }
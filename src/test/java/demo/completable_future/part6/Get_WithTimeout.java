@@ -16,15 +16,15 @@ public class Get_WithTimeout extends Demo {
 
     @Test
     public void testGetWithTimeoutSuccess() throws InterruptedException, ExecutionException, TimeoutException {
-        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> sleepAndGet(2, "value"));
-        assertEquals("value", future.get(3, TimeUnit.SECONDS));
+        CompletableFuture<String> future = delayAndGet(2, "value");
+        assertEquals("value", clock.get(future, 3, TimeUnit.SECONDS)); // future.get(3, TimeUnit.SECONDS) on virtual time
     }
 
     @Test
     public void testGetWithTimeoutFailure() throws InterruptedException, ExecutionException {
-        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> sleepAndGet(2, "value"));
+        CompletableFuture<String> future = delayAndGet(2, "value");
         try {
-            future.get(1, TimeUnit.SECONDS);
+            clock.get(future, 1, TimeUnit.SECONDS); // future.get(1, TimeUnit.SECONDS) on virtual time
             fail();
         } catch (TimeoutException e) {
             assertTrue(true);
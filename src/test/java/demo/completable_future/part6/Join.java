@@ -3,6 +3,7 @@ package demo.completable_future.part6;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
@@ -10,8 +11,10 @@ import static org.junit.Assert.assertEquals;
 public class Join extends Demo {
 
     @Test
-    public void testJoin() {
+    public void testJoin() throws InterruptedException {
         CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> sleepAndGet(2, "value"));
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(2));
         assertEquals("value", future.join()); // throws no checked exceptions
     }
 }
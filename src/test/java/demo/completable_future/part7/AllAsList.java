@@ -0,0 +1,53 @@
+package demo.completable_future.part7;
+
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.Futures;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AllAsList extends Demo {
+
+    @Test
+    public void testAllAsList() throws InterruptedException, ExecutionException {
+        List<CompletableFuture<String>> futures = List.of(
+                supplyAsync(() -> sleepAndGet(3, "parallel1")),
+                supplyAsync(() -> sleepAndGet(2, "parallel2")),
+                supplyAsync(() -> sleepAndGet(1, "parallel3"))
+        );
+
+        CompletableFuture<List<String>> future = Futures.allAsList(futures);
+
+        clock.awaitSleepers(3);
+        clock.advance(Duration.ofSeconds(3));
+        assertEquals(List.of("parallel1", "parallel2", "parallel3"), future.get());
+    }
+
+    @Test
+    public void testAllAsListFailFast() throws InterruptedException {
+        CompletableFuture<String> future1 = new CompletableFuture<>();
+        CompletableFuture<String> future2 = new CompletableFuture<>();
+        CompletableFuture<String> future3 = new CompletableFuture<>();
+
+        CompletableFuture<List<String>> future = Futures.allAsList(List.of(future1, future2, future3), true);
+
+        future1.complete("parallel1");
+        future2.completeExceptionally(new RuntimeException("exception"));
+
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("exception", e.getCause().getMessage());
+        }
+        assertTrue(future3.isCancelled());
+    }
+}
@@ -3,6 +3,7 @@ package demo.completable_future.part7;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
@@ -22,6 +23,8 @@ public class AllOf extends Demo {
         };
 
         CompletableFuture<Void> future = CompletableFuture.allOf(futures);
+        clock.awaitSleepers(3);
+        clock.advance(Duration.ofSeconds(3));
         future.get();
 
         String result = Stream.of(futures)
@@ -39,6 +42,8 @@ public class AllOf extends Demo {
 
         CompletableFuture<Void> future = future1
                 .runAfterBoth(future2, () -> {});
+        clock.awaitSleepers(2);
+        clock.advance(Duration.ofSeconds(2));
         future.get();
 
         String result = Stream.of(future1, future2)
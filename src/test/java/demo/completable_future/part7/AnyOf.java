@@ -3,6 +3,7 @@ package demo.completable_future.part7;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -19,6 +20,8 @@ public class AnyOf extends Demo {
                 supplyAsync(() -> sleepAndGet(3, "parallel3"))
         );
 
+        clock.awaitSleepers(3);
+        clock.advance(Duration.ofSeconds(1));
         assertEquals("parallel1", future.get());
     }
 
@@ -30,6 +33,8 @@ public class AnyOf extends Demo {
         CompletableFuture<String> future = future1
                 .applyToEither(future2, value -> value);
 
+        clock.awaitSleepers(2);
+        clock.advance(Duration.ofSeconds(1));
         assertEquals("parallel1", future.get());
     }
 }
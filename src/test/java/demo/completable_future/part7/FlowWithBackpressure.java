@@ -0,0 +1,115 @@
+package demo.completable_future.part7;
+
+import demo.completable_future.common.AsyncMapProcessor;
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.Flows;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FlowWithBackpressure extends Demo {
+
+    private final LatencySimulator priceService = new LatencySimulator(LatencyDistribution.uniform(Duration.ofMillis(1), Duration.ofMillis(20)), clock);
+    private final LatencySimulator taxService = new LatencySimulator(LatencyDistribution.uniform(Duration.ofMillis(1), Duration.ofMillis(20)), clock);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Test
+    public void testToList() {
+        Flow.Publisher<Integer> items = Flows.fromStream(IntStream.range(0, 10_000).boxed());
+        Flow.Publisher<Integer> prices = AsyncMapProcessor.map(items, 100, this::getPrice);
+        Flow.Publisher<Float> grossAmounts = AsyncMapProcessor.map(prices, 100,
+                price -> taxService.supply(50 / 100f).thenApply(tax -> price * (1 + tax)));
+
+        logger.info("this task started");
+        CompletableFuture<List<Float>> future = Flows.toList(grossAmounts); // non-blocking
+        logger.info("another task started");
+
+        List<Float> result = advanceAndJoin(future);
+        logger.info("this task finished: {} items, at most {} prices in flight", result.size(), maxInFlight.get());
+
+        assertEquals(IntStream.range(0, 10_000).mapToObj(item -> item * 2 * 1.5f).collect(Collectors.toList()), result);
+        assertTrue(maxInFlight.get() <= 100);
+    }
+
+    @Test
+    public void testReduce() {
+        Flow.Publisher<Integer> items = Flows.fromIterable(IntStream.range(0, 10_000).boxed().collect(Collectors.toList()));
+        Flow.Publisher<Integer> prices = AsyncMapProcessor.map(items, 50, this::getPrice);
+
+        long sum = advanceAndJoin(Flows.reduce(prices, 0L, (total, price) -> total + price));
+
+        assertEquals(2L * 9_999 * 10_000 / 2, sum);
+        assertTrue(maxInFlight.get() <= 50);
+    }
+
+    @Test
+    public void testDemand() {
+        Flow.Publisher<Integer> prices = AsyncMapProcessor.map(Flows.fromStream(IntStream.range(0, 10_000).boxed()), 100, this::getPrice);
+
+        AtomicLong received = new AtomicLong();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        prices.subscribe(new Flow.Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(5);
+                clock.schedule(() -> done.complete(null), 500, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void onNext(Integer price) {
+                received.incrementAndGet();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+
+        advanceAndJoin(done);
+        logger.info("this task finished: {} items received, at most {} prices in flight", received.get(), maxInFlight.get());
+        assertEquals(5, received.get());
+        assertTrue(maxInFlight.get() <= 5);
+    }
+
+    @Test
+    public void testFailure() {
+        Flow.Publisher<Integer> prices = AsyncMapProcessor.map(Flows.fromStream(IntStream.range(0, 10_000).boxed()), 10,
+                item -> item == 100 ? CompletableFuture.failedFuture(new RuntimeException("exception")) : getPrice(item));
+
+        try {
+            advanceAndJoin(Flows.toList(prices));
+            fail();
+        } catch (CompletionException e) {
+            assertEquals("exception", e.getCause().getMessage());
+        }
+    }
+
+    private CompletableFuture<Integer> getPrice(int item) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return priceService.supply(item * 2)
+                .whenComplete((price, throwable) -> inFlight.decrementAndGet());
+    }
+}
@@ -0,0 +1,115 @@
+package demo.completable_future.part7;
+
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.Hedging;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HedgedRequest extends Demo {
+
+    @Test
+    public void testHedgeWins() throws InterruptedException, ExecutionException, TimeoutException {
+        Hedging hedging = Hedging.withFixedDelay(Duration.ofMillis(100)).clock(clock);
+        CompletableFuture<String> primary = new CompletableFuture<>(); // never answers
+        AtomicInteger requests = new AtomicInteger();
+
+        CompletableFuture<String> future = hedging.call(() -> requests.getAndIncrement() == 0
+                ? primary
+                : CompletableFuture.completedFuture("backup"));
+
+        assertEquals("backup", advanceAndJoin(future));
+        try {
+            primary.get(1, TimeUnit.SECONDS); // cancelled right after the result is completed
+            fail();
+        } catch (CancellationException e) {
+            assertTrue(primary.isCancelled());
+        }
+        assertEquals(1, hedging.hedgesFired());
+        assertEquals(1, hedging.hedgesWon());
+    }
+
+    @Test
+    public void testPrimaryWins() throws InterruptedException, ExecutionException {
+        Hedging hedging = Hedging.withFixedDelay(Duration.ofSeconds(2)).clock(clock);
+
+        CompletableFuture<String> future = hedging.call(() -> delayAndGet(1, "primary"));
+
+        assertEquals("primary", advanceAndJoin(future));
+        assertEquals(0, hedging.hedgesFired());
+        assertEquals(0, hedging.hedgesWon());
+    }
+
+    @Test
+    public void testPercentileDelay() {
+        Hedging hedging = Hedging.withPercentileDelay(0.95, Duration.ofSeconds(1));
+
+        for (int i = 0; i < 1024; i++) {
+            hedging.call(() -> CompletableFuture.completedFuture("value")).join();
+        }
+
+        assertTrue(hedging.delay().compareTo(Duration.ofSeconds(1)) < 0);
+    }
+
+    @Test
+    public void testPercentileOfPrimaryLatency() {
+        LatencySimulator service = new LatencySimulator(LatencyDistribution.fixed(Duration.ofMillis(100)), clock);
+        Hedging hedging = Hedging.withPercentileDelay(0.5, Duration.ofMillis(10)).clock(clock);
+        AtomicInteger requests = new AtomicInteger();
+
+        for (int i = 0; i < 256; i++) {
+            CompletableFuture<String> future = hedging.call(() -> requests.getAndIncrement() % 2 == 0
+                    ? service.supply("primary")
+                    : CompletableFuture.completedFuture("backup"));
+            clock.advance(Duration.ofMillis(10));
+            assertEquals("backup", future.join());
+            clock.advance(Duration.ofMillis(90)); // the losing primary still completes
+        }
+
+        assertEquals(256, hedging.hedgesWon());
+        assertEquals(Duration.ofMillis(100), hedging.delay()); // not the 10 ms after which the backups answered
+    }
+
+    @Test
+    public void testTailLatency() {
+        LatencySimulator service = new LatencySimulator(LatencyDistribution.longTail(Duration.ofMillis(10), Duration.ofMillis(500), 0.05), clock);
+        Hedging hedging = Hedging.withFixedDelay(Duration.ofMillis(30)).clock(clock);
+
+        long p99 = p99Millis(() -> service.supply("value"), Supplier::get);
+        long hedgedP99 = p99Millis(() -> service.supply("value"), hedging::call);
+
+        logger.info("p99: {} ms, hedged p99: {} ms, hedges fired: {}, hedges won: {}",
+                p99, hedgedP99, hedging.hedgesFired(), hedging.hedgesWon());
+        assertTrue(hedgedP99 < p99);
+    }
+
+    private long p99Millis(Supplier<CompletableFuture<String>> request,
+                                  Function<Supplier<CompletableFuture<String>>, CompletableFuture<String>> caller) {
+        long[] latencies = new long[1000];
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[latencies.length];
+        for (int i = 0; i < latencies.length; i++) {
+            int index = i;
+            long startNanos = clock.nanoTime();
+            futures[i] = caller.apply(request)
+                    .thenRun(() -> latencies[index] = clock.nanoTime() - startNanos);
+        }
+        advanceAndJoin(CompletableFuture.allOf(futures));
+        Arrays.sort(latencies);
+        return Duration.ofNanos(latencies[latencies.length * 99 / 100]).toMillis();
+    }
+}
@@ -3,7 +3,6 @@ package demo.completable_future.part8;
 import demo.completable_future.common.Demo;
 import org.junit.Test;
 
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
@@ -11,7 +10,7 @@ public class DelayedExecutor extends Demo {
 
     @Test
     public void testDelayedExecutor() {
-        Executor executor = CompletableFuture.delayedExecutor(1, TimeUnit.SECONDS);
+        Executor executor = clock.delayedExecutor(1, TimeUnit.SECONDS, Runnable::run); // CompletableFuture.delayedExecutor(1, TimeUnit.SECONDS) on virtual time
 
         System.out.println("begin");
         executor.execute(() -> System.out.println("Runnable"));
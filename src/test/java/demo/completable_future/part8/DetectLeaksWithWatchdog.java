@@ -0,0 +1,97 @@
+package demo.completable_future.part8;
+
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.DependentsWatchdog;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DetectLeaksWithWatchdog extends Demo {
+
+    private final DependentsWatchdog watchdog = new DependentsWatchdog(1000, clock::nanoTime);
+
+    @Test
+    public void testSample() {
+        CompletableFuture<String> config = watchdog.track("config", new CompletableFuture<>());
+        for (int i = 0; i < 10; i++) {
+            config.thenApply(String::length);
+        }
+        assertEquals(10, config.getNumberOfDependents()); // tracking adds no dependent
+
+        clock.advance(Duration.ofMinutes(1));
+        List<DependentsWatchdog.Sample> samples = watchdog.sample();
+
+        assertEquals(1, samples.size());
+        assertEquals("config", samples.get(0).name());
+        assertEquals(10, samples.get(0).dependents());
+        assertEquals(Duration.ofMinutes(1), samples.get(0).age());
+        assertFalse(samples.get(0).isLeak());
+    }
+
+    @Test
+    public void testLeak() {
+        CompletableFuture<Void> warmUp = watchdog.track("warm-up gate", new CompletableFuture<>());
+        for (int i = 0; i < 5000; i++) {
+            warmUp.thenRun(() -> {}); // every request waits on the gate, which is never opened
+        }
+
+        List<DependentsWatchdog.Sample> leaks = watchdog.leaks();
+
+        logger.info("leaks: {}", leaks);
+        assertEquals(1, leaks.size());
+        assertEquals(5000, leaks.get(0).dependents());
+    }
+
+    @Test
+    public void testHighWaterMark() {
+        CompletableFuture<String> config = watchdog.track("config", new CompletableFuture<>());
+        List<CompletableFuture<Integer>> dependents = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            dependents.add(config.thenApply(String::length));
+        }
+        watchdog.sample();
+
+        dependents.forEach(dependent -> dependent.cancel(false)); // cancelling a dependent does not unlink it
+        config.thenApply(String::length);
+        DependentsWatchdog.Sample sample = watchdog.sample().get(0);
+
+        assertEquals(101, sample.dependents());
+        assertEquals(101, sample.highWaterMark());
+    }
+
+    @Test
+    public void testCompletedFuturesAreDropped() {
+        CompletableFuture<String> config = watchdog.track("config", new CompletableFuture<>());
+        config.thenApply(String::length);
+        assertEquals(1, watchdog.sample().size());
+
+        config.complete("value");
+
+        assertTrue(watchdog.sample().isEmpty());
+    }
+
+    @Test
+    public void testPeriodicSampling() {
+        List<DependentsWatchdog.Sample> reported = new ArrayList<>();
+        watchdog.start(clock, Duration.ofSeconds(10), reported::add);
+
+        CompletableFuture<Void> warmUp = watchdog.track("warm-up gate", new CompletableFuture<>());
+        clock.advance(Duration.ofSeconds(10));
+        assertTrue(reported.isEmpty());
+
+        for (int i = 0; i < 1000; i++) {
+            warmUp.thenRun(() -> {});
+        }
+        clock.advance(Duration.ofSeconds(20));
+
+        assertEquals(2, reported.size());
+        assertEquals(Duration.ofSeconds(30), reported.get(1).age());
+    }
+}
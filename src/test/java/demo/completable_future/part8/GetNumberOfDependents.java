@@ -14,4 +14,27 @@ public class GetNumberOfDependents extends Demo {
         CompletableFuture<String> future = CompletableFuture.completedFuture("value");
         assertEquals(0, future.getNumberOfDependents());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDependentsStayUntilCompletion() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        for (int i = 0; i < 1000; i++) {
+            future.thenApply(String::toUpperCase); // the dependent is pushed on the stack of the incomplete future
+        }
+        assertEquals(1000, future.getNumberOfDependents());
+
+        future.complete("value");
+        assertEquals(0, future.getNumberOfDependents());
+    }
+
+    @Test
+    public void testEitherDependentsAreCleaned() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        for (int i = 0; i < 1000; i++) {
+            CompletableFuture<String> other = new CompletableFuture<>();
+            future.applyToEither(other, String::toUpperCase);
+            other.complete("value"); // the dead node is unlinked from the stack of the future
+        }
+        assertEquals(0, future.getNumberOfDependents());
+    }
+}
@@ -0,0 +1,90 @@
+package demo.completable_future.part8;
+
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.InstrumentedFuture;
+import demo.completable_future.common.LogLinearHistogram;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InstrumentedStages extends Demo {
+
+    @Test
+    public void testInstrumentedFuture() throws InterruptedException {
+        InstrumentedFuture.Metrics metrics = new InstrumentedFuture.Metrics(clock::nanoTime);
+        InstrumentedFuture<Integer> future = new InstrumentedFuture<>(metrics);
+
+        CompletableFuture<Void> stage = future
+                .thenApply(i -> i + 1) // sync
+                .thenApplyAsync(i -> sleepAndGet(1, i * 2)) // async, on the default executor
+                .thenAccept(i -> logger.info("result: {}", i)); // sync
+
+        assertTrue(stage instanceof InstrumentedFuture);
+
+        future.complete(1);
+        clock.awaitSleepers(1);
+        clock.advance(Duration.ofSeconds(1));
+        stage.join();
+
+        logger.info("{}", metrics);
+        assertEquals(3, metrics.runTime().count());
+        assertEquals(1, metrics.queueWait().count());
+        assertEquals(1, metrics.timeToSchedule().count());
+        assertTrue(metrics.runTime().p999() >= 1_000_000_000L * 15 / 16);
+    }
+
+    @Test
+    public void testComposeEndsWhenComposedStageCompletes() {
+        InstrumentedFuture.Metrics metrics = new InstrumentedFuture.Metrics(clock::nanoTime);
+        InstrumentedFuture<Integer> future = new InstrumentedFuture<>(metrics);
+
+        CompletableFuture<Integer> stage = future
+                .thenCompose(i -> delayAndGet(1, i + 1)) // completes 1 second after the function returns
+                .thenApplyAsync(i -> i * 2);
+
+        future.complete(1);
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(4, (int) stage.join()); // the last stage runs on the default executor, not on the clock
+
+        logger.info("{}", metrics);
+        assertEquals(1, metrics.timeToSchedule().count());
+        assertTrue(metrics.timeToSchedule().p999() < 1_000_000L);
+    }
+
+    @Test
+    public void testCombineIsScheduledFromLaterStage() {
+        InstrumentedFuture.Metrics metrics = new InstrumentedFuture.Metrics(clock::nanoTime);
+        InstrumentedFuture<Integer> future1 = new InstrumentedFuture<>(metrics);
+        InstrumentedFuture<Integer> future2 = new InstrumentedFuture<>(metrics);
+
+        CompletableFuture<Integer> stage = future1.thenCombineAsync(future2, Integer::sum);
+
+        future1.complete(1);
+        clock.advance(Duration.ofSeconds(1));
+        future2.complete(2);
+        assertEquals(3, (int) stage.join());
+
+        logger.info("{}", metrics);
+        assertEquals(1, metrics.timeToSchedule().count());
+        assertTrue(metrics.timeToSchedule().p999() < 1_000_000L);
+    }
+
+    @Test
+    public void testLogLinearHistogram() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i);
+        }
+
+        LogLinearHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(100_000, snapshot.count());
+        assertEquals(50_000, snapshot.p50(), 50_000 / 16.0);
+        assertEquals(99_000, snapshot.p99(), 99_000 / 16.0);
+        assertEquals(99_900, snapshot.p999(), 99_900 / 16.0);
+    }
+}
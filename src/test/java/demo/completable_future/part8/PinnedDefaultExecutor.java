@@ -0,0 +1,33 @@
+package demo.completable_future.part8;
+
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.PinnedExecutorFuture;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PinnedDefaultExecutor extends Demo {
+
+    @Test
+    public void testPinnedDefaultExecutor() throws InterruptedException, ExecutionException {
+        ExecutorService executorService = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "pinned"));
+
+        CompletableFuture<String> future = PinnedExecutorFuture.supplyAsync(() -> Thread.currentThread().getName(), executorService)
+                .thenApplyAsync(name -> name + " " + Thread.currentThread().getName())
+                .thenComposeAsync(name -> CompletableFuture.supplyAsync(() -> name))
+                .thenApplyAsync(name -> name + " " + Thread.currentThread().getName());
+
+        assertTrue(future instanceof PinnedExecutorFuture);
+        assertSame(executorService, future.defaultExecutor());
+        assertEquals("pinned pinned pinned", future.get());
+
+        executorService.shutdown();
+    }
+}
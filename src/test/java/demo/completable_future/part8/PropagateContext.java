@@ -0,0 +1,110 @@
+package demo.completable_future.part8;
+
+import demo.completable_future.common.AsyncContext;
+import demo.completable_future.common.ContextExecutor;
+import demo.completable_future.common.ContextFuture;
+import demo.completable_future.common.Demo;
+import demo.completable_future.common.LatencyDistribution;
+import demo.completable_future.common.LatencySimulator;
+import demo.completable_future.common.MdcBinder;
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class PropagateContext extends Demo {
+
+    private final ExecutorService threads = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "worker"));
+    private final Queue<String> seen = new ConcurrentLinkedQueue<>();
+    private final LatencySimulator service = new LatencySimulator(LatencyDistribution.fixed(Duration.ofMillis(100)));
+
+    @After
+    public void after() {
+        AsyncContext.setBinder((previous, next) -> {
+        });
+        threads.shutdownNow();
+    }
+
+    @Test
+    public void testContextExecutor() {
+        ContextExecutor executor = new ContextExecutor(threads);
+
+        CompletableFuture<String> future = AsyncContext.of("correlationId", "42").call(() ->
+                CompletableFuture.supplyAsync(() -> record("supplyAsync"), executor)
+                        .thenApplyAsync(value -> record("thenApplyAsync"), executor)
+                        .thenComposeAsync(value -> CompletableFuture.supplyAsync(() -> record("nested supplyAsync"), executor), executor));
+        future.join();
+
+        assertEquals(List.of("42", "42", "42"), List.copyOf(seen));
+        assertSame(AsyncContext.EMPTY, AsyncContext.current());
+        assertNull(CompletableFuture.supplyAsync(() -> AsyncContext.current().get("correlationId"), threads).join()); // restored after each task
+    }
+
+    @Test
+    public void testContextFuture() {
+        CompletableFuture<String> future = AsyncContext.of("correlationId", "42").call(() ->
+                ContextFuture.supplyAsync(() -> record("supplyAsync"))
+                        .thenApplyAsync(value -> record("thenApplyAsync")) // commonPool, in the context of the chain
+                        .thenComposeAsync(value -> service.supply("nested call"))
+                        .thenApplyAsync(value -> record("thenApplyAsync after the nested call")));
+
+        future.join();
+
+        assertTrue(future instanceof ContextFuture);
+        assertEquals(List.of("42", "42", "42"), List.copyOf(seen));
+    }
+
+    @Test
+    public void testForeignCompletion() {
+        CompletableFuture<String> future = AsyncContext.of("correlationId", "42").call(() ->
+                ContextFuture.from(service.supply("value"))
+                        .thenApply(value -> record("thenApply on the simulator's thread")));
+
+        future.join();
+
+        assertEquals(List.of("42"), List.copyOf(seen));
+    }
+
+    @Test
+    public void testMdc() {
+        AsyncContext.setBinder(new MdcBinder("correlationId"));
+        ContextExecutor executor = new ContextExecutor(threads);
+
+        CompletableFuture<String> future = AsyncContext.of("correlationId", "42").call(() ->
+                CompletableFuture.supplyAsync(() -> {
+                    logger.info("this task started"); // printed with [42]
+                    return MDC.get("correlationId");
+                }, executor));
+
+        assertEquals("42", future.join());
+        assertNull(CompletableFuture.supplyAsync(() -> MDC.get("correlationId"), threads).join());
+        assertNull(MDC.get("correlationId"));
+    }
+
+    @Test
+    public void testImmutable() {
+        AsyncContext context = AsyncContext.of("correlationId", "42");
+        AsyncContext other = context.with("correlationId", "43").with("tenant", "acme");
+
+        assertEquals("42", context.get("correlationId"));
+        assertNull(context.get("tenant"));
+        assertEquals("43", other.get("correlationId"));
+        assertEquals("acme", other.get("tenant"));
+    }
+
+    private String record(String stage) {
+        String correlationId = AsyncContext.current().get("correlationId");
+        logger.info("{}: correlationId={}", stage, correlationId);
+        seen.add(String.valueOf(correlationId));
+        return stage;
+    }
+}